@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+
+/**
+ * 검색 조건 인덱스 적용 전후 비교
+ * indexed=false 면 회원, 팀 테이블의 검색용 인덱스를 지우고 측정한다.
+ */
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+
+    private static final String[] INDEXES = {
+            "idx_member_user_name", "idx_member_age", "idx_member_team_age", "idx_team_name"
+    };
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    MemberJpaRepository memberJpaRepository;
+    MemberSearchCondition userNameCondition;
+    MemberSearchCondition teamAgeCondition;
+    MemberSearchCondition ageCondition;
+
+    @Setup
+    public void setUp(MemberBenchmarkState state) {
+        memberJpaRepository = state.getBean(MemberJpaRepository.class);
+
+        if (!indexed) {
+            JdbcTemplate jdbcTemplate = state.getBean(JdbcTemplate.class);
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("drop index if exists " + index);
+            }
+        }
+
+        userNameCondition = new MemberSearchCondition();
+        userNameCondition.setUserName("member" + (state.rowCount / 2));
+
+        teamAgeCondition = new MemberSearchCondition();
+        teamAgeCondition.setTeamName("team1");
+        teamAgeCondition.setAgeGoe(30);
+        teamAgeCondition.setAgeLoe(31);
+
+        ageCondition = new MemberSearchCondition();
+        ageCondition.setAgeGoe(50);
+        ageCondition.setAgeLoe(50);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> userNameEq() {
+        return memberJpaRepository.search(userNameCondition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamNameAndAgeRange() {
+        return memberJpaRepository.search(teamAgeCondition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> ageRange() {
+        return memberJpaRepository.search(ageCondition);
+    }
+}
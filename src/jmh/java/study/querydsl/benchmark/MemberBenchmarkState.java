@@ -0,0 +1,86 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 벤치마크 공통 상태
+ * 인메모리 H2 로 애플리케이션을 띄우고 rowCount 만큼 회원을 넣어둔다.
+ */
+@State(Scope.Benchmark)
+public class MemberBenchmarkState {
+
+    static final int TEAM_COUNT = 10;
+
+    @Param("10000")
+    public int rowCount;
+
+    ConfigurableApplicationContext context;
+    EntityManager entityManager;
+    JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.profiles.active=bench", // local 프로파일의 InitMember 제외
+                        "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--spring.cache.type=none", // 검색 결과 캐시 없이 쿼리 비용을 측정
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--logging.level.org.hibernate.SQL=warn");
+
+        entityManager = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seed() {
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team[] teams = new Team[TEAM_COUNT];
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                teams[i] = new Team("team" + i);
+                entityManager.persist(teams[i]);
+            }
+
+            for (int i = 0; i < rowCount; i++) {
+                entityManager.persist(new Member("member" + i, i % 100, teams[i % TEAM_COUNT]));
+                if (i % 1000 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    for (int j = 0; j < TEAM_COUNT; j++) {
+                        teams[j] = entityManager.getReference(Team.class, teams[j].getId());
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원명 부분 검색 - 3-gram 인덱스 / user_name 인덱스 vs 단순 like
+ * 100만 건 : ./gradlew jmh -PjmhInclude=NameSearchBenchmark -ProwCount=1000000
+ */
+@State(Scope.Benchmark)
+public class NameSearchBenchmark {
+
+    MemberBenchmarkState state;
+    MemberJpaRepository memberJpaRepository;
+    String keyword;
+    MemberSearchCondition containsCondition;
+    MemberSearchCondition startsWithCondition;
+
+    @Setup
+    public void setUp(MemberBenchmarkState state) {
+        this.state = state;
+        this.memberJpaRepository = state.getBean(MemberJpaRepository.class);
+
+        // 회원명은 "member" + 번호, 가운데 번호의 뒷자리로 검색
+        String name = "member" + (state.rowCount / 2 + 1);
+        keyword = name.substring(name.length() - 4);
+
+        containsCondition = new MemberSearchCondition();
+        containsCondition.setUserNameContains(keyword);
+
+        startsWithCondition = new MemberSearchCondition();
+        startsWithCondition.setUserNameStartsWith(name);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> contains_gramIndex() {
+        return memberJpaRepository.search(containsCondition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> contains_like() {
+        return state.queryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.userName.containsIgnoreCase(keyword))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> startsWith_index() {
+        return memberJpaRepository.search(startsWithCondition);
+    }
+
+    /**
+     * lower() 를 씌우면 user_name 인덱스를 쓸 수 없다.
+     */
+    @Benchmark
+    public List<MemberTeamDto> startsWith_ignoreCase() {
+        return state.queryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.userName.startsWithIgnoreCase(startsWithCondition.getUserNameStartsWith()))
+                .fetch();
+    }
+
+    private QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(member.id, member.userName, member.age, team.id, team.name);
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * Page(카운트 쿼리) 와 Slice(pageSize + 1 조회) 비교
+ * page 는 조회할 페이지 번호, 첫 페이지와 중간 페이지를 측정한다.
+ * (searchPageComplex 는 첫 페이지에서 결과가 pageSize 보다 적을 때만 카운트를 생략하므로 둘 다 카운트가 나간다.)
+ */
+@State(Scope.Benchmark)
+public class PaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "100"})
+    public int page;
+
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+    Pageable pageable;
+
+    @Setup
+    public void setUp(MemberBenchmarkState state) {
+        memberRepository = state.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        pageable = PageRequest.of(page, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPage() {
+        return memberRepository.searchPage(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> searchSlice() {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * DTO 프로젝션 방식 비교 (setter, field, 생성자, @QueryProjection)
+ * 한 번에 PAGE_SIZE 건씩 조회
+ */
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    static final int PAGE_SIZE = 100;
+
+    MemberBenchmarkState state;
+
+    @Setup
+    public void setUp(MemberBenchmarkState state) {
+        this.state = state;
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionBean() {
+        return state.queryFactory
+                .select(Projections.bean(MemberDto.class,
+                        member.userName,
+                        member.age))
+                .from(member)
+                .limit(PAGE_SIZE)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionFields() {
+        return state.queryFactory
+                .select(Projections.fields(MemberDto.class,
+                        member.userName,
+                        member.age))
+                .from(member)
+                .limit(PAGE_SIZE)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionConstructor() {
+        return state.queryFactory
+                .select(Projections.constructor(MemberDto.class,
+                        member.userName,
+                        member.age))
+                .from(member)
+                .limit(PAGE_SIZE)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return state.queryFactory
+                .select(new QMemberDto(member.userName, member.age))
+                .from(member)
+                .limit(PAGE_SIZE)
+                .fetch();
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * JPQL 과 Querydsl, BooleanBuilder 와 where 다중 파라미터 비교
+ */
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    MemberBenchmarkState state;
+    MemberJpaRepository memberJpaRepository;
+    MemberSearchCondition condition;
+
+    @Setup
+    public void setUp(MemberBenchmarkState state) {
+        this.state = state;
+        this.memberJpaRepository = state.getBean(MemberJpaRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(40);
+    }
+
+    @Benchmark
+    public List<Member> findByUserName_JPQL() {
+        return memberJpaRepository.findByUserName("member1");
+    }
+
+    @Benchmark
+    public List<Member> findByUserName_Querydsl() {
+        return memberJpaRepository.findByUserName_Querydsl("member1");
+    }
+
+    /**
+     * 검색 조건 모양(shape) 캐시 사용
+     */
+    @Benchmark
+    public List<MemberTeamDto> search_cached() {
+        return memberJpaRepository.search(condition);
+    }
+
+    /**
+     * 매번 BooleanBuilder 로 표현식을 만들고 JPQL 을 직렬화
+     */
+    @Benchmark
+    public List<MemberTeamDto> search_booleanBuilder() {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (condition.getUserName() != null) {
+            builder.and(member.userName.eq(condition.getUserName()));
+        }
+        if (condition.getTeamName() != null) {
+            builder.and(team.name.eq(condition.getTeamName()));
+        }
+        if (condition.getAgeGoe() != null) {
+            builder.and(member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            builder.and(member.age.loe(condition.getAgeLoe()));
+        }
+
+        return state.queryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(builder)
+                .fetch();
+    }
+
+    /**
+     * 매번 where 다중 파라미터로 표현식을 만들고 JPQL 을 직렬화
+     */
+    @Benchmark
+    public List<MemberTeamDto> search_whereParams() {
+        return state.queryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        userNameEq(condition.getUserName()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .fetch();
+    }
+
+    private QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(member.id, member.userName, member.age, team.id, team.name);
+    }
+
+    private BooleanExpression userNameEq(String userName) {
+        return userName != null ? member.userName.eq(userName) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return teamName != null ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
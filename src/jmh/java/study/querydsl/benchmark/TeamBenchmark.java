@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.TeamWithMembersDto;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.TeamQueryRepository;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 상위 N 명 회원 조회 비교 (팀당 회원 rowCount / TEAM_COUNT 명)
+ * - limitedInApplication : 팀, 회원 id 순으로 읽으면서 팀별 N 명만 담는다. (TeamQueryRepository, 회원 수에 비례)
+ * - limitedBySubquery : 같은 팀에서 id 가 더 작은 회원 수를 세는 상관 서브쿼리 (팀 크기 k 에 대해 O(k²))
+ */
+@State(Scope.Benchmark)
+public class TeamBenchmark {
+
+    @Param("10")
+    public int memberLimit;
+
+    MemberBenchmarkState state;
+    TeamQueryRepository teamQueryRepository;
+
+    @Setup
+    public void setUp(MemberBenchmarkState state) {
+        this.state = state;
+        teamQueryRepository = state.getBean(TeamQueryRepository.class);
+    }
+
+    @Benchmark
+    public List<TeamWithMembersDto> all() {
+        return teamQueryRepository.findTeamsWithMembersDto(null, null);
+    }
+
+    @Benchmark
+    public List<TeamWithMembersDto> limitedInApplication() {
+        return teamQueryRepository.findTeamsWithMembersDto(null, memberLimit);
+    }
+
+    @Benchmark
+    public List<Tuple> limitedBySubquery() {
+        QMember other = new QMember("other");
+        return state.queryFactory
+                .select(team.id, team.name, member.userName, member.age)
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(JPAExpressions
+                        .select(other.count())
+                        .from(other)
+                        .where(
+                                other.team.eq(team),
+                                other.id.lt(member.id))
+                        .lt((long) memberLimit))
+                .orderBy(team.id.asc(), member.id.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 기준선 저장, 비교
+ * p99 가 기준선보다 tolerance 이상 늘었거나, 처리량이 tolerance 이상 줄었으면 회귀로 본다.
+ * 오류율이 maxErrorRate 를 넘으면 기준선이 없어도 회귀로 본다.
+ * 기준선은 같은 장비, 같은 설정에서 저장한 것과 비교할 것
+ */
+class Baseline {
+
+    private final Path path;
+    private final double tolerance;
+    private final double maxErrorRate;
+
+    Baseline(Path path, double tolerance, double maxErrorRate) {
+        this.path = path;
+        this.tolerance = tolerance;
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    void save(List<LoadTestResult> results, LoadTestConfig config) {
+        Properties properties = new Properties();
+        results.forEach(result -> result.store(properties));
+        write(path, properties, "member load test baseline : " + config);
+    }
+
+    /**
+     * @return 회귀 목록 (기준선이 없으면 오류율만 확인)
+     */
+    List<String> compare(List<LoadTestResult> results) {
+        List<String> regressions = errorRegressions(results);
+        if (!Files.exists(path)) {
+            return regressions;
+        }
+        Properties baseline = read(path);
+        for (LoadTestResult result : results) {
+            String throughput = baseline.getProperty(result.key() + ".throughput");
+            String p99 = baseline.getProperty(result.key() + ".p99");
+            if (throughput == null || p99 == null) {
+                continue;
+            }
+            if (result.throughput < Double.parseDouble(throughput) * (1 - tolerance)) {
+                regressions.add(String.format("%s throughput %.1f/s < baseline %s/s", result.key(), result.throughput, throughput));
+            }
+            if (result.p99 > Double.parseDouble(p99) * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 %.2fms > baseline %sms", result.key(), result.p99, p99));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * 오류율이 maxErrorRate 를 넘은 단계
+     */
+    List<String> errorRegressions(List<LoadTestResult> results) {
+        List<String> regressions = new ArrayList<>();
+        for (LoadTestResult result : results) {
+            if (result.errorRate > maxErrorRate) {
+                regressions.add(String.format("%s error rate %.2f%% (%d/%d) > %.2f%%", result.key(),
+                        result.errorRate * 100, result.errors, result.requests, maxErrorRate * 100));
+            }
+        }
+        return regressions;
+    }
+
+    static void write(Path path, Properties properties, String comment) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                properties.store(writer, comment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Properties read(Path path) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정 (시스템 프로퍼티 loadtest.*, gradle 에서는 -Ploadtest.*)
+ * <pre>
+ * ./gradlew loadTest -Ploadtest.endpoints=v2,v3 -Ploadtest.concurrency=1,8,32 -Ploadtest.duration=30s
+ * ./gradlew loadTest -Ploadtest.rate=500                 # 목표 처리량 고정 (response time)
+ * </pre>
+ */
+class LoadTestConfig {
+
+    /** 회원 수 */
+    final int rowCount = Integer.getInteger("loadtest.rowCount", 100_000);
+    /** 팀 수 */
+    final int teamCount = Integer.getInteger("loadtest.teamCount", 10);
+    /** 호출할 API (v1, v2, v3) */
+    final List<String> endpoints = strings(System.getProperty("loadtest.endpoints", "v1,v2,v3"));
+    /** 동시 요청 수 (단계별로 차례대로 실행) */
+    final List<Integer> concurrency = integers(System.getProperty("loadtest.concurrency", "1,8,32"));
+    /** 검색 조건 비율 (SearchScenario 이름:가중치) */
+    final Map<SearchScenario, Integer> mix = mix(System.getProperty("loadtest.mix", "teamAge:4,userName:3,ageRange:2,team:1"));
+    /** 페이지 번호 후보 (v2, v3) */
+    final List<Integer> pages = integers(System.getProperty("loadtest.pages", "0,1,10"));
+    /** 페이지 크기 (v2, v3) */
+    final int pageSize = Integer.getInteger("loadtest.pageSize", 20);
+    /**
+     * 단계마다 목표 처리량 (초당 요청 수, 워커 전체 합계)
+     * 0 이면 closed-loop (응답을 받자마자 다음 요청), 지연 시간은 서버가 느려진 동안 못 보낸 요청이 빠진 service time 이다.
+     * 0 보다 크면 요청마다 예정 시각을 정해 두고 예정 시각부터 응답까지를 재므로 밀린 대기 시간까지 포함된 response time 이 된다.
+     */
+    final int rate = Integer.getInteger("loadtest.rate", 0);
+    /** 단계마다 측정 전 예열 시간, 측정 시간 */
+    final Duration warmup = duration(System.getProperty("loadtest.warmup", "10s"));
+    final Duration duration = duration(System.getProperty("loadtest.duration", "30s"));
+    /** 검색 조건, 페이지 선택 난수 시드 (같은 시드면 같은 요청 순서) */
+    final long seed = Long.getLong("loadtest.seed", 42L);
+    /** 검색 결과 캐시 (기본은 쿼리 비용을 보기 위해 끔) */
+    final String cacheType = System.getProperty("loadtest.cacheType", "none");
+    /** 결과 디렉토리 (단계별 .hgrm, summary.properties) */
+    final Path outputDir = Path.of(System.getProperty("loadtest.outputDir", "build/loadtest"));
+    /** 기준선 파일, 저장 여부, 허용 오차 (p99 증가, 처리량 감소 비율) */
+    final Path baseline = Path.of(System.getProperty("loadtest.baseline", "src/loadtest/baseline.properties"));
+    final boolean saveBaseline = Boolean.getBoolean("loadtest.saveBaseline");
+    final double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+    /** 허용 오류율 (200 이 아닌 응답, 연결 실패), 넘으면 기준선과 관계없이 회귀 */
+    final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.001"));
+
+    @Override
+    public String toString() {
+        return "rowCount=" + rowCount + ", teamCount=" + teamCount + ", endpoints=" + endpoints
+                + ", concurrency=" + concurrency + ", mix=" + mix + ", pages=" + pages + ", pageSize=" + pageSize
+                + ", rate=" + rate + ", warmup=" + warmup + ", duration=" + duration + ", seed=" + seed + ", cacheType=" + cacheType;
+    }
+
+    private static List<String> strings(String value) {
+        List<String> result = new ArrayList<>();
+        for (String token : value.split(",")) {
+            if (!token.isBlank()) {
+                result.add(token.trim());
+            }
+        }
+        return result;
+    }
+
+    private static List<Integer> integers(String value) {
+        List<Integer> result = new ArrayList<>();
+        for (String token : strings(value)) {
+            result.add(Integer.parseInt(token));
+        }
+        return result;
+    }
+
+    private static Map<SearchScenario, Integer> mix(String value) {
+        Map<SearchScenario, Integer> result = new LinkedHashMap<>();
+        for (String token : strings(value)) {
+            String[] nameAndWeight = token.split(":");
+            int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1].trim()) : 1;
+            result.put(SearchScenario.of(nameAndWeight[0].trim()), weight);
+        }
+        return result;
+    }
+
+    // 10s, 500ms, 1m 또는 ISO-8601 (PT10S)
+    private static Duration duration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.startsWith("pt")) {
+            return Duration.parse(text);
+        }
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Properties;
+
+/**
+ * 단계 하나(API, 동시 요청 수, 목표 처리량)의 결과 (지연 시간은 ms)
+ * 목표 처리량이 없으면(closed-loop) 백분위는 service time, 있으면 예정 시각부터 잰 response time 이다.
+ * 백분위는 실패한 요청을 포함하고, 처리량은 성공한 요청만 센다.
+ */
+class LoadTestResult {
+
+    final String endpoint;
+    final int concurrency;
+    final int rate;
+    final long requests;
+    final long errors;
+    final double errorRate;
+    final double throughput;
+    final double p50;
+    final double p95;
+    final double p99;
+    final double p999;
+    final double max;
+
+    LoadTestResult(String endpoint, int concurrency, int rate, Histogram histogram, long errors, double seconds) {
+        this.endpoint = endpoint;
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.requests = histogram.getTotalCount();
+        this.errors = errors;
+        this.errorRate = requests > 0 ? (double) errors / requests : 0;
+        this.throughput = (requests - errors) / seconds;
+        this.p50 = millis(histogram.getValueAtPercentile(50));
+        this.p95 = millis(histogram.getValueAtPercentile(95));
+        this.p99 = millis(histogram.getValueAtPercentile(99));
+        this.p999 = millis(histogram.getValueAtPercentile(99.9));
+        this.max = millis(histogram.getMaxValue());
+    }
+
+    /**
+     * 기준선, 요약 파일의 키 접두어 (예 : v2.c8, 목표 처리량이 있으면 v2.c8.r500)
+     * service time 과 response time 은 서로 비교하지 않도록 키를 나눈다.
+     */
+    String key() {
+        return endpoint + ".c" + concurrency + (rate > 0 ? ".r" + rate : "");
+    }
+
+    /**
+     * 백분위가 재는 시간 (service : 요청을 보낸 시각부터, response : 예정 시각부터)
+     */
+    String latency() {
+        return rate > 0 ? "response" : "service";
+    }
+
+    void store(Properties properties) {
+        properties.setProperty(key() + ".latency", latency());
+        properties.setProperty(key() + ".throughput", format(throughput));
+        properties.setProperty(key() + ".p50", format(p50));
+        properties.setProperty(key() + ".p95", format(p95));
+        properties.setProperty(key() + ".p99", format(p99));
+        properties.setProperty(key() + ".p999", format(p999));
+        properties.setProperty(key() + ".errors", String.valueOf(errors));
+        properties.setProperty(key() + ".errorRate", format(errorRate));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-4s c=%-4d rate=%-6s requests=%-8d errors=%-5d (%.2f%%) throughput=%10.1f/s"
+                        + "  %s time p50=%8.2fms p95=%8.2fms p99=%8.2fms p999=%8.2fms max=%8.2fms",
+                endpoint, concurrency, rate > 0 ? rate + "/s" : "-", requests, errors, errorRate * 100, throughput,
+                latency(), p50, p95, p99, p999, max);
+    }
+
+    // 히스토그램은 마이크로초로 기록한다.
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+}
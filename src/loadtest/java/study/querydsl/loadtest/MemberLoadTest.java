@@ -0,0 +1,258 @@
+package study.querydsl.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.TeamRepository;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * MemberController /v1, /v2, /v3 부하 테스트
+ * 인메모리 H2 로 애플리케이션을 띄워 데이터를 넣고, API 와 동시 요청 수 조합마다
+ * 예열 후 정해진 시간 동안 요청을 보내 처리량과 지연 시간 분포(HdrHistogram)를 기록한다.
+ * 기본은 동시 요청 수 만큼의 스레드가 응답을 받자마자 다음 요청을 보내는 closed-loop 방식이라
+ * 서버가 멈춘 동안 보내지 못한 요청이 기록에서 빠진다. (coordinated omission, 백분위는 service time)
+ * loadtest.rate 를 주면 정해진 간격의 예정 시각부터 재서 대기 시간까지 포함한 response time 을 기록한다.
+ * <pre>
+ * ./gradlew loadTest                                   # 기준선과 비교 (회귀가 있으면 실패)
+ * ./gradlew loadTest -Ploadtest.saveBaseline=true      # 기준선 저장
+ * </pre>
+ * 설정은 LoadTestConfig 참고
+ */
+public class MemberLoadTest {
+
+    private static final String BATCH_SIZE = "spring.jpa.properties.hibernate.jdbc.batch_size";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        System.out.println("load test : " + config);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .run(
+                        "--spring.profiles.active=loadtest", // local 프로파일의 InitMember 제외
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "--server.port=0",
+                        "--spring.cache.type=" + config.cacheType,
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--logging.level.org.hibernate.SQL=warn");
+
+        List<LoadTestResult> results = new ArrayList<>();
+        try {
+            seed(context, config);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            for (String endpoint : config.endpoints) {
+                for (int concurrency : config.concurrency) {
+                    LoadTestResult result = run(client, port, endpoint, concurrency, config);
+                    System.out.println(result);
+                    results.add(result);
+                }
+            }
+        } finally {
+            context.close();
+        }
+
+        report(results, config);
+    }
+
+    /**
+     * MemberBenchmarkState 와 같은 규칙으로 넣는다. (member{i}, 나이 i % 100, 팀 team{i % teamCount})
+     */
+    private static void seed(ConfigurableApplicationContext context, LoadTestConfig config) {
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        MemberJpaRepository memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+        Team[] teams = new Team[config.teamCount];
+        for (int i = 0; i < config.teamCount; i++) {
+            teams[i] = teamRepository.save(new Team("team" + i));
+        }
+
+        int chunk = context.getEnvironment().getProperty(BATCH_SIZE, Integer.class, 100) * 100;
+        for (int from = 0; from < config.rowCount; from += chunk) {
+            List<Member> members = new ArrayList<>();
+            for (int i = from; i < Math.min(from + chunk, config.rowCount); i++) {
+                Member member = new Member("member" + i, i % 100);
+                member.setTeam(teams[i % config.teamCount]);
+                members.add(member);
+            }
+            memberJpaRepository.saveAll(members);
+        }
+        System.out.println("seeded members=" + config.rowCount + ", teams=" + config.teamCount);
+    }
+
+    private static LoadTestResult run(HttpClient client, int port, String endpoint, int concurrency,
+                                      LoadTestConfig config) throws InterruptedException {
+        Recorder recorder = new Recorder(3);
+        LongAdder errors = new LongAdder();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        // 목표 처리량이 있으면 워커마다 concurrency / rate 초 간격으로 보낸다.
+        long intervalNanos = config.rate > 0 ? TimeUnit.SECONDS.toNanos(concurrency) / config.rate : 0;
+        long scheduleStart = System.nanoTime();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        IntStream.range(0, concurrency).forEach(worker -> workers.execute(() -> {
+            // 워커마다 시드를 달리해서 같은 요청을 동시에 보내지 않게 한다.
+            Random random = new Random(config.seed + worker);
+            // 워커끼리 예정 시각을 고르게 어긋나게 둔다.
+            long intended = scheduleStart + intervalNanos * worker / concurrency;
+            while (running.get()) {
+                HttpRequest request = HttpRequest.newBuilder(uri(port, endpoint, random, config))
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build();
+                if (intervalNanos > 0) {
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                // 목표 처리량이 있으면 늦게 보낸 요청도 예정 시각부터 잰다.
+                long start = intervalNanos > 0 ? intended : System.nanoTime();
+                intended += intervalNanos;
+                boolean ok;
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    ok = response.statusCode() == 200;
+                } catch (IOException e) {
+                    ok = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                if (measuring.get()) {
+                    // 실패도 지연 시간 분포에 넣는다. (빠르게 실패하는 요청이 좋은 백분위로 숨지 않게 오류율로 따로 판정)
+                    recorder.recordValue(micros);
+                    if (!ok) {
+                        errors.increment();
+                    }
+                }
+            }
+        }));
+
+        Thread.sleep(config.warmup.toMillis());
+        recorder.reset();
+        errors.reset();
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(config.duration.toMillis());
+        measuring.set(false);
+        Histogram histogram = recorder.getIntervalHistogram();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        running.set(false);
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        writeHistogram(histogram, endpoint, concurrency, config);
+        LoadTestResult result = new LoadTestResult(endpoint, concurrency, config.rate, histogram, errors.sum(), seconds);
+        if (config.rate > 0 && result.throughput < config.rate * 0.95) {
+            System.out.println("WARN " + result.key() + " 목표 처리량 " + config.rate + "/s 에 못 미침, 지연 시간은 밀린 대기 시간을 포함한다.");
+        }
+        return result;
+    }
+
+    private static URI uri(int port, String endpoint, Random random, LoadTestConfig config) {
+        StringBuilder query = new StringBuilder(pick(config.mix, random).query(random, config));
+        // v1 은 페이징이 없다.
+        if (!"v1".equals(endpoint)) {
+            if (query.length() > 0) {
+                query.append('&');
+            }
+            query.append("page=").append(config.pages.get(random.nextInt(config.pages.size())))
+                    .append("&size=").append(config.pageSize);
+        }
+        return URI.create("http://localhost:" + port + "/" + endpoint + "/members?" + query);
+    }
+
+    // 가중치 비율로 선택
+    private static SearchScenario pick(Map<SearchScenario, Integer> mix, Random random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int point = random.nextInt(total);
+        for (Map.Entry<SearchScenario, Integer> entry : mix.entrySet()) {
+            point -= entry.getValue();
+            if (point < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("검색 조건 비율이 비어 있습니다.");
+    }
+
+    /**
+     * HdrHistogram 백분위 분포 (.hgrm, ms 단위) - HdrHistogram plotter 로 단계별 비교 가능
+     */
+    private static void writeHistogram(Histogram histogram, String endpoint, int concurrency, LoadTestConfig config) {
+        try {
+            Files.createDirectories(config.outputDir);
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(config.outputDir.resolve(fileName(endpoint, concurrency, config))))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String fileName(String endpoint, int concurrency, LoadTestConfig config) {
+        return endpoint + "-c" + concurrency + (config.rate > 0 ? "-r" + config.rate : "") + ".hgrm";
+    }
+
+    private static void report(List<LoadTestResult> results, LoadTestConfig config) {
+        Properties summary = new Properties();
+        results.forEach(result -> result.store(summary));
+        Baseline.write(config.outputDir.resolve("summary.properties"), summary, "member load test : " + config);
+
+        Baseline baseline = new Baseline(config.baseline, config.tolerance, config.maxErrorRate);
+        if (config.saveBaseline) {
+            List<String> errors = baseline.errorRegressions(results);
+            if (!errors.isEmpty()) {
+                errors.forEach(error -> System.out.println("REGRESSION " + error));
+                System.out.println("baseline not saved");
+                System.exit(1);
+            }
+            baseline.save(results, config);
+            System.out.println("baseline saved : " + config.baseline.toAbsolutePath());
+            return;
+        }
+
+        List<String> regressions = baseline.compare(results);
+        if (regressions.isEmpty()) {
+            System.out.println("no regression against " + config.baseline);
+            return;
+        }
+        regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+        System.exit(1);
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.loadtest;
+
+import java.util.Random;
+
+/**
+ * 부하 테스트 검색 조건 (MemberSearchCondition 쿼리 파라미터)
+ * 데이터는 MemberLoadTest.seed 와 같은 규칙 : member{i}, 나이 i % 100, 팀 team{i % teamCount}
+ */
+enum SearchScenario {
+
+    /** 조건 없음 (v1 은 전체 회원을 내려주므로 주의) */
+    ALL("all") {
+        @Override
+        String query(Random random, LoadTestConfig config) {
+            return "";
+        }
+    },
+    USER_NAME("userName") {
+        @Override
+        String query(Random random, LoadTestConfig config) {
+            return "userName=member" + random.nextInt(config.rowCount);
+        }
+    },
+    TEAM("team") {
+        @Override
+        String query(Random random, LoadTestConfig config) {
+            return "teamName=team" + random.nextInt(config.teamCount);
+        }
+    },
+    TEAM_AGE("teamAge") {
+        @Override
+        String query(Random random, LoadTestConfig config) {
+            int ageGoe = random.nextInt(90);
+            return "teamName=team" + random.nextInt(config.teamCount) + "&ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 10);
+        }
+    },
+    AGE_RANGE("ageRange") {
+        @Override
+        String query(Random random, LoadTestConfig config) {
+            int ageGoe = random.nextInt(95);
+            return "ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 5);
+        }
+    };
+
+    private final String key;
+
+    SearchScenario(String key) {
+        this.key = key;
+    }
+
+    abstract String query(Random random, LoadTestConfig config);
+
+    static SearchScenario of(String key) {
+        for (SearchScenario scenario : values()) {
+            if (scenario.key.equalsIgnoreCase(key) || scenario.name().equalsIgnoreCase(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 검색 조건입니다: " + key);
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -4,6 +4,8 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import study.querydsl.repository.event.ChangeTrackingQueryFactory;
+import study.querydsl.repository.event.EntityChangePublisher;
 
 import javax.persistence.EntityManager;
 
@@ -14,8 +16,9 @@ public class QuerydslApplication {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
 
+	// 벌크 update, delete 도 엔티티 변경 이벤트로 알린다.
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager entityManager) {
-		return new JPAQueryFactory(entityManager);
+	JPAQueryFactory jpaQueryFactory(EntityManager entityManager, EntityChangePublisher entityChangePublisher) {
+		return new ChangeTrackingQueryFactory(entityManager, entityChangePublisher);
 	}
 }
@@ -0,0 +1,12 @@
+package study.querydsl.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 캐시 설정은 application.yml 의 spring.cache
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
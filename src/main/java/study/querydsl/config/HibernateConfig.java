@@ -0,0 +1,39 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.config.replica.ReplicaRoutingDataSource;
+import study.querydsl.repository.support.EntityLoadCountInterceptor;
+import study.querydsl.repository.MemberSearchCacheEvictor;
+import study.querydsl.repository.support.QueryCountInspector;
+import study.querydsl.repository.support.TableWriteInspector;
+
+@Configuration
+public class HibernateConfig {
+
+    /**
+     * StatementInspector, Interceptor 등록
+     * - SQL 수, 엔티티 로딩 수 측정
+     * - 회원, 팀 테이블 쓰기 시 검색 결과 캐시 무효화 (StatementInspector 는 하나만 등록 가능하므로 연결)
+     * - 쓰기 후 읽기를 primary 로 고정 (복제본 라우팅 사용 시)
+     */
+    @Bean
+    HibernatePropertiesCustomizer queryCountCustomizer(ObjectProvider<MemberSearchCacheEvictor> memberSearchCacheEvictor,
+                                                       ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource) {
+        return properties -> {
+            QueryCountInspector queryCountInspector = new QueryCountInspector();
+            TableWriteInspector tableWriteInspector = new TableWriteInspector(table -> {
+                memberSearchCacheEvictor.ifAvailable(evictor -> evictor.onWrite(table));
+                replicaRoutingDataSource.ifAvailable(ReplicaRoutingDataSource::pinToPrimary);
+            });
+
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                    (StatementInspector) sql -> tableWriteInspector.inspect(queryCountInspector.inspect(sql)));
+            properties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCountInterceptor());
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.MemberSearchQueryCache;
+
+import java.util.List;
+
+import static study.querydsl.repository.MemberSearchCacheEvictor.MEMBER_SEARCH;
+import static study.querydsl.repository.MemberSearchCacheEvictor.MEMBER_SEARCH_PAGE;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 검색 조건 모양(shape) 캐시 적중/미스 횟수
+     */
+    @Bean
+    MeterBinder memberSearchQueryCacheMetrics(MemberSearchQueryCache memberSearchQueryCache) {
+        return registry -> {
+            FunctionCounter.builder("member.search.query.cache", memberSearchQueryCache, MemberSearchQueryCache::getHitCount)
+                    .description("검색 조건 모양별 JPQL 캐시 조회 수")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("member.search.query.cache", memberSearchQueryCache, MemberSearchQueryCache::getMissCount)
+                    .description("검색 조건 모양별 JPQL 캐시 조회 수")
+                    .tag("result", "miss")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 회원 검색 결과 캐시 적중률
+     * 조회, 제거 횟수는 Spring Boot 가 cache.gets, cache.evictions 로 등록한다.
+     */
+    @Bean
+    MeterBinder memberSearchCacheMetrics(CacheManager cacheManager) {
+        return registry -> {
+            for (String name : List.of(MEMBER_SEARCH, MEMBER_SEARCH_PAGE)) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache instanceof CaffeineCache) {
+                    Gauge.builder("member.search.cache.hit.ratio", ((CaffeineCache) cache).getNativeCache(),
+                                    nativeCache -> nativeCache.stats().hitRate())
+                            .description("회원 검색 결과 캐시 적중률")
+                            .tag("cache", name)
+                            .register(registry);
+                }
+            }
+        };
+    }
+}
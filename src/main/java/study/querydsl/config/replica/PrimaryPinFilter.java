@@ -0,0 +1,88 @@
+package study.querydsl.config.replica;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 쓰기 후 primary 고정을 같은 클라이언트의 다음 요청까지 이어준다. (read-your-writes)
+ * 고정 만료 시각을 쿠키로 내려주고, 요청이 들어오면 만료 전이면 다시 고정한다.
+ * 요청 스레드는 재사용되므로 요청이 끝나면 스레드의 고정은 해제한다.
+ */
+class PrimaryPinFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "replica-pin";
+
+    private static final String WRITTEN = PrimaryPinFilter.class.getName() + ".WRITTEN";
+
+    private final long pinAfterWriteMillis;
+
+    PrimaryPinFilter(long pinAfterWriteMillis) {
+        this.pinAfterWriteMillis = pinAfterWriteMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long until = readCookie(request);
+        try {
+            if (until > 0) {
+                ReplicaRoutingDataSource.pinUntil(until);
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.clearPin();
+        }
+    }
+
+    // 조작된 값으로 오래 고정되지 않도록 지금부터 pin-after-write 이내인 값만 인정한다.
+    private long readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return -1;
+        }
+        long now = System.currentTimeMillis();
+        for (Cookie cookie : cookies) {
+            if (!COOKIE.equals(cookie.getName())) {
+                continue;
+            }
+            try {
+                long until = Long.parseLong(cookie.getValue());
+                return until > now && until <= now + pinAfterWriteMillis ? until : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 웹 요청 안에서 고정했으면 응답에 만료 시각 쿠키를 내려준다. (요청마다 한 번, 응답이 나가기 전에만)
+     */
+    static void remember(long until, long pinAfterWriteMillis) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+        if (response == null || response.isCommitted() || request.getAttribute(WRITTEN) != null) {
+            return;
+        }
+        request.setAttribute(WRITTEN, until);
+
+        Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+        cookie.setMaxAge((int) Math.max(1, (pinAfterWriteMillis + 999) / 1000));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        response.addCookie(cookie);
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.config.replica;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 읽기 전용 복제본 라우팅 (querydsl.replica.enabled=true 일 때만)
+ * primary 는 spring.datasource, 복제본은 querydsl.replica.replicas 로 만든다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.replica.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaDataSourceConfig {
+
+    private static final Status DEGRADED = new Status("DEGRADED", "일부 복제본을 사용할 수 없어서 primary 로 읽는 중");
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    ReplicaHealthChecker replicaHealthChecker(ReplicaProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaProperties.Replica> configs = properties.getReplicas();
+        for (int i = 0; i < configs.size(); i++) {
+            ReplicaProperties.Replica config = configs.get(i);
+            replicas.put("replica-" + i, DataSourceBuilder.create()
+                    .url(config.getUrl())
+                    .username(config.getUsername())
+                    .password(config.getPassword())
+                    .build());
+        }
+        return new ReplicaHealthChecker(replicas, properties);
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                      ReplicaHealthChecker replicaHealthChecker,
+                                                      ReplicaProperties properties) {
+        DataSource primary = dataSourceProperties.initializeDataSourceBuilder().build();
+        return new ReplicaRoutingDataSource(primary, replicaHealthChecker, properties);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * 트랜잭션이 끝나면 커넥션을 반납한다.
+     * 기본값(DELAYED_ACQUISITION_AND_HOLD)은 open-in-view 로 요청 내내 열려 있는 EntityManager 가 커넥션을 잡고 있어서
+     * 요청의 첫 트랜잭션이 고른 커넥션(복제본)을 뒤따르는 쓰기 트랜잭션도 그대로 쓰게 된다.
+     */
+    @Bean
+    HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    HealthIndicator replicasHealthIndicator(ReplicaHealthChecker replicaHealthChecker) {
+        return () -> {
+            Map<String, ReplicaHealthChecker.ReplicaStatus> statuses = replicaHealthChecker.getStatuses();
+            boolean allHealthy = statuses.values().stream().allMatch(ReplicaHealthChecker.ReplicaStatus::isHealthy);
+            return Health.status(allHealthy ? Status.UP : DEGRADED)
+                    .withDetails(new LinkedHashMap<>(statuses))
+                    .build();
+        };
+    }
+
+    /**
+     * 쓰기 후 primary 고정을 다음 요청까지 이어주고, 요청이 끝나면 스레드의 고정은 해제한다.
+     */
+    @Bean
+    OncePerRequestFilter primaryPinFilter(ReplicaProperties properties) {
+        return new PrimaryPinFilter(properties.getPinAfterWrite().toMillis());
+    }
+}
@@ -0,0 +1,150 @@
+package study.querydsl.config.replica;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 복제본 상태 확인
+ * 주기적으로 연결과 복제 지연을 확인하고, 정상인 복제본을 돌아가며 골라준다.
+ * 정상인 복제본이 없으면 null -> 읽기도 primary 로 간다.
+ */
+public class ReplicaHealthChecker {
+
+    private static final int VALID_TIMEOUT_SECONDS = 1;
+
+    private final Map<String, DataSource> replicas;
+    private final ReplicaProperties properties;
+    private final Map<String, ReplicaStatus> statuses = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaHealthChecker(Map<String, DataSource> replicas, ReplicaProperties properties) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.properties = properties;
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public void start() {
+        check();
+        long interval = properties.getHealthCheckInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-health-"));
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof Closeable) {
+                try {
+                    ((Closeable) replica).close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 모든 복제본 상태 확인
+     */
+    public void check() {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            ReplicaStatus status = check(replica.getValue());
+            statuses.put(replica.getKey(), status);
+            if (status.isHealthy()) {
+                result.add(replica.getKey());
+            }
+        }
+        healthy = List.copyOf(result);
+    }
+
+    private ReplicaStatus check(DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(VALID_TIMEOUT_SECONDS)) {
+                return ReplicaStatus.down("invalid connection");
+            }
+            long lagMillis = lagMillis(connection);
+            if (lagMillis > properties.getMaxLag().toMillis()) {
+                return new ReplicaStatus(false, lagMillis, "lag " + lagMillis + "ms");
+            }
+            return new ReplicaStatus(true, lagMillis, null);
+        } catch (Exception e) {
+            return ReplicaStatus.down(e.getMessage());
+        }
+    }
+
+    private long lagMillis(Connection connection) throws SQLException {
+        if (properties.getLagQuery() == null) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * 정상인 복제본을 라운드 로빈으로 선택, 없으면 null
+     */
+    public String nextHealthy() {
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    public Map<String, ReplicaStatus> getStatuses() {
+        return new LinkedHashMap<>(statuses);
+    }
+
+    public static class ReplicaStatus {
+        private final boolean healthy;
+        private final long lagMillis;
+        private final String error;
+
+        ReplicaStatus(boolean healthy, long lagMillis, String error) {
+            this.healthy = healthy;
+            this.lagMillis = lagMillis;
+            this.error = error;
+        }
+
+        static ReplicaStatus down(String error) {
+            return new ReplicaStatus(false, -1, error);
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
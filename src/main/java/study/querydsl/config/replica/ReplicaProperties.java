@@ -0,0 +1,43 @@
+package study.querydsl.config.replica;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 복제본(replica) 설정 (querydsl.replica)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.replica")
+public class ReplicaProperties {
+
+    private boolean enabled;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // 상태 확인 주기
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    // 복제 지연을 밀리초로 반환하는 SQL, 없으면 지연을 확인하지 않는다.
+    // 예) PostgreSQL : select extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000
+    private String lagQuery;
+
+    // 이보다 뒤처진 복제본은 사용하지 않는다.
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    // 쓰기 후 이 시간 동안 같은 스레드와 같은 클라이언트의 다음 요청(쿠키)의 읽기는 primary 로 보낸다.
+    private Duration pinAfterWrite = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
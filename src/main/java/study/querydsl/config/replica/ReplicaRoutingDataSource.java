@@ -0,0 +1,97 @@
+package study.querydsl.config.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 읽기 전용 트랜잭션은 정상인 복제본으로, 나머지(쓰기, 트랜잭션 없음)는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 설정되지 않으므로
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 시점에 커넥션을 고르게 할 것
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    // 이 시각(ms)까지 현재 스레드의 읽기는 primary 로 보낸다.
+    private static final ThreadLocal<Long> PRIMARY_PIN_UNTIL = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final ReplicaHealthChecker healthChecker;
+    private final long pinAfterWriteMillis;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaHealthChecker healthChecker, ReplicaProperties properties) {
+        this.primary = primary;
+        this.healthChecker = healthChecker;
+        this.pinAfterWriteMillis = properties.getPinAfterWrite().toMillis();
+
+        Map<Object, Object> targets = new HashMap<>(healthChecker.getReplicas());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        String replica = healthChecker.nextHealthy();
+        return replica != null ? replica : PRIMARY;
+    }
+
+    /**
+     * 쓰기 직후 복제 지연 동안 방금 쓴 데이터를 읽을 수 있도록 현재 스레드의 읽기를 primary 로 고정
+     * 고정은 pin-after-write 가 지나면 풀린다.
+     * 웹 요청이면 같은 클라이언트의 다음 요청도 고정되도록 쿠키로 이어주고(PrimaryPinFilter),
+     * 웹 요청 밖(배치, 스케줄러)에서는 pinScope 로 감싸서 끝나면 스레드의 고정을 해제할 것
+     */
+    public void pinToPrimary() {
+        long until = System.currentTimeMillis() + pinAfterWriteMillis;
+        pinUntil(until);
+        PrimaryPinFilter.remember(until, pinAfterWriteMillis);
+    }
+
+    static void pinUntil(long until) {
+        PRIMARY_PIN_UNTIL.set(until);
+    }
+
+    /**
+     * 블록 안에서 생긴 primary 고정을 블록이 끝나면 해제한다. (스레드 풀에서 다음 작업으로 넘어가지 않도록)
+     */
+    public static <T> T pinScope(Supplier<T> block) {
+        try {
+            return block.get();
+        } finally {
+            clearPin();
+        }
+    }
+
+    public static boolean isPinnedToPrimary() {
+        Long until = PRIMARY_PIN_UNTIL.get();
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            PRIMARY_PIN_UNTIL.remove();
+            return false;
+        }
+        return true;
+    }
+
+    public static void clearPin() {
+        PRIMARY_PIN_UNTIL.remove();
+    }
+
+    public void close() throws IOException {
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+    }
+}
@@ -1,36 +1,141 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.querydsl.binding.QuerydslPredicate;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.InvalidSearchException;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberField;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.CountStrategy;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
         return memberJpaRepository.search(condition);
     }
 
+    /**
+     * 전체 결과를 메모리에 올리지 않고 한 줄에 한 건씩(NDJSON) 내려준다.
+     */
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMemberV1(MemberSearchCondition condition) {
+        StreamingResponseBody body = outputStream -> memberJpaRepository.searchStream(condition, dto -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(dto));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * fields : 조회할 필드 (memberId, userName, age, teamId, teamName), 예) fields=userName,age
+     * 요청한 컬럼만 select 하고 팀 필드나 팀명 조건이 없으면 팀을 조인하지 않는다.
+     */
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberV1(MemberSearchCondition condition, @RequestParam String fields) {
+        return memberRepository.search(condition, MemberField.parse(fields));
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPage(condition, pageable);
     }
 
+    /**
+     * count : 전체 건수 조회 방식 (EXACT, CACHED, ESTIMATED)
+     * ESTIMATED 로 추정치를 내려주면 응답의 totalEstimated 가 true 다. (last 는 추정치와 관계없이 정확하다.)
+     */
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "EXACT") CountStrategy count) {
+        return memberRepository.searchPageComplex(condition, pageable, count);
+    }
+
+    @GetMapping(value = "/v3/members", params = "fields")
+    public Page<Map<String, Object>> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                                    @RequestParam(defaultValue = "EXACT") CountStrategy count,
+                                                    @RequestParam String fields) {
+        return memberRepository.searchPageComplex(condition, pageable, count, MemberField.parse(fields));
+    }
+
+    @GetMapping("/v4/members")
+    public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return memberRepository.searchByCursor(condition, cursor, Math.max(1, Math.min(size, MAX_CURSOR_SIZE)));
+    }
+
+    /**
+     * 전체 건수 없이 다음 페이지 여부만 내려준다. (카운트 쿼리 없음)
+     * 정렬은 인덱스가 있는 속성(id, userName, age)만 허용, 예) sort=age,desc
+     */
+    @GetMapping("/v5/members")
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    @GetMapping(value = "/v5/members", params = "fields")
+    public Slice<Map<String, Object>> searchMemberV5(MemberSearchCondition condition, Pageable pageable,
+                                                     @RequestParam String fields) {
+        return memberRepository.searchSlice(condition, pageable, MemberField.parse(fields));
+    }
+
+    /**
+     * Querydsl Web 바인딩 검색 (허용 조건과 연산은 MemberRepository.customize)
+     * 예) /v6/members?team.name=teamA&age=20&age=30&userName=mem*&sort=age,desc&size=20
+     * 페이지 크기는 MAX_PAGE_SIZE 까지, 정렬은 인덱스가 있는 속성(id, userName, age)만 허용
+     */
+    @GetMapping("/v6/members")
+    public Page<MemberTeamDto> searchMemberV6(
+            @QuerydslPredicate(root = Member.class, bindings = MemberRepository.class) Predicate predicate,
+            Pageable pageable) {
+        if (pageable.getPageSize() > MAX_PAGE_SIZE) {
+            pageable = PageRequest.of(pageable.getPageNumber(), MAX_PAGE_SIZE, pageable.getSort());
+        }
+        return memberRepository.searchByPredicate(predicate, pageable);
+    }
+
+    /**
+     * 허용하지 않는 필드, 정렬, 검색 연산, 커서 -> 400
+     * 다른 IllegalArgumentException 은 내부 메시지가 새지 않도록 여기서 잡지 않는다.
+     */
+    @ExceptionHandler(InvalidSearchException.class)
+    public ResponseEntity<String> badRequest(InvalidSearchException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
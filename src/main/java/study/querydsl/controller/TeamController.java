@@ -0,0 +1,55 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.TeamWithMembersDto;
+import study.querydsl.repository.TeamQueryRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamQueryRepository teamQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * memberLimit : 팀별 최대 회원 수 (없으면 전체)
+     */
+    @GetMapping("/v1/teams")
+    public List<TeamWithMembersDto> searchTeamV1(@RequestParam(required = false) String teamName,
+                                                 @RequestParam(required = false) Integer memberLimit) {
+        return teamQueryRepository.findTeamsWithMembersDto(teamName, positive(memberLimit));
+    }
+
+    /**
+     * 팀 하나씩 한 줄에(NDJSON) 내려준다.
+     */
+    @GetMapping(value = "/v1/teams/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTeamV1(@RequestParam(required = false) String teamName,
+                                                              @RequestParam(required = false) Integer memberLimit) {
+        StreamingResponseBody body = outputStream -> teamQueryRepository.streamTeamsWithMembersDto(
+                teamName, positive(memberLimit), dto -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(dto));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        return ResponseEntity.ok(body);
+    }
+
+    private static Integer positive(Integer memberLimit) {
+        return memberLimit != null && memberLimit > 0 ? memberLimit : null;
+    }
+}
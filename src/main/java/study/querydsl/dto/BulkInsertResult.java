@@ -0,0 +1,33 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대량 저장 결과 (저장 건수, 소요 시간)
+ * 소요 시간은 System.nanoTime() 으로 잰다. (ms 단위로 재면 적은 건수는 0 이 되어 처리율을 구할 수 없다.)
+ */
+@Getter
+@ToString
+public class BulkInsertResult {
+    private final long count;
+    private final long elapsedNanos;
+
+    public BulkInsertResult(long count, long elapsedNanos) {
+        this.count = count;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * 초당 저장 건수, 소요 시간을 잴 수 없으면(0) NaN
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? Double.NaN : count * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.dto;
+
+/**
+ * 허용하지 않는 검색 요청 (필드, 정렬, 검색 연산, 커서)
+ * 메시지는 요청 값만 담으므로 그대로 400 응답 본문으로 내려준다. (MemberController)
+ * IllegalArgumentException 을 상속하면 리포지토리 프록시가 InvalidDataAccessApiUsageException 으로 바꾸므로 상속하지 않는다.
+ */
+public class InvalidSearchException extends RuntimeException {
+
+    public InvalidSearchException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ * 마지막 행의 (정렬 키, member_id) 를 클라이언트가 해석하지 못하도록 Base64 로 감싼다.
+ */
+@Getter
+public class MemberCursor {
+
+    private static final String DELIMITER = ":";
+
+    private final int age;
+    private final Long memberId;
+
+    public MemberCursor(int age, Long memberId) {
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberCursor of(MemberTeamDto last) {
+        return new MemberCursor(last.getAge(), last.getMemberId());
+    }
+
+    public String encode() {
+        String raw = age + DELIMITER + memberId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(DELIMITER);
+            if (parts.length == 2) {
+                return new MemberCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) { // NumberFormatException 포함
+            throw new InvalidSearchException("잘못된 커서 입니다. cursor=" + cursor, e);
+        }
+        throw new InvalidSearchException("잘못된 커서 입니다. cursor=" + cursor);
+    }
+}
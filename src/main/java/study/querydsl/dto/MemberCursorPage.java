@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 커서 기반 조회 결과
+ * 다음 페이지가 없으면 nextCursor 는 null
+ */
+@Data
+public class MemberCursorPage {
+    private List<MemberTeamDto> content;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public MemberCursorPage(List<MemberTeamDto> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
 
 /**
  * 회원 검색 조건
@@ -8,9 +9,49 @@ import lombok.Data;
 @Data
 public class MemberSearchCondition {
 
+    // 검색 조건 조합(shape) 비트
+    public static final int USER_NAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+    public static final int SHAPE_COUNT = 1 << 4;
+
     // 회원명, 팀명, 나이(ageGoe, ageLoe)
     private String userName;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    // 회원명 포함, 앞부분 일치
+    private String userNameContains;
+    private String userNameStartsWith;
+
+    /**
+     * 회원명 부분 검색 조건이 있는지
+     * 포함 검색은 검색어 길이마다 JPQL 이 달라지므로 shape 에 넣지 않고 따로 판단한다.
+     */
+    public boolean hasUserNameSearch() {
+        return StringUtils.hasText(userNameContains) || StringUtils.hasText(userNameStartsWith);
+    }
+
+    /**
+     * 값이 들어있는 조건의 비트마스크
+     * where 절 모양이 같은 검색은 같은 shape 를 가진다.
+     */
+    public int shape() {
+        int shape = 0;
+        if (StringUtils.hasText(userName)) {
+            shape |= USER_NAME;
+        }
+        if (StringUtils.hasText(teamName)) {
+            shape |= TEAM_NAME;
+        }
+        if (ageGoe != null) {
+            shape |= AGE_GOE;
+        }
+        if (ageLoe != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
 }
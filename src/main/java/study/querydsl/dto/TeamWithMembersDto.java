@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 팀 + 소속 회원 목록
+ */
+@Data
+public class TeamWithMembersDto {
+    private Long teamId;
+    private String teamName;
+    private List<MemberDto> members;
+
+    public TeamWithMembersDto() {
+    }
+
+    public TeamWithMembersDto(Long teamId, String teamName, List<MemberDto> members) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = members;
+    }
+}
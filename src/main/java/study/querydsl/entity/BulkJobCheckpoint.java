@@ -0,0 +1,52 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 청크 단위 벌크 작업의 진행 위치
+ * 청크와 같은 트랜잭션에서 갱신되므로 실패 후 다시 실행하면 마지막으로 커밋된 청크 다음부터 이어서 처리한다.
+ * 작업이 끝나면 삭제된다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BulkJobCheckpoint {
+
+    @Id
+    private String jobName;
+
+    // 작업 시작 시 정한 id 범위, 재시작해도 바꾸지 않는다.
+    private Long minId;
+    private Long maxId;
+
+    // 마지막으로 커밋된 청크의 끝 id
+    private Long lastId;
+
+    private long chunks;
+    private long affectedRows;
+    private LocalDateTime updatedAt;
+
+    public BulkJobCheckpoint(String jobName, Long minId, Long maxId) {
+        this.jobName = jobName;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.lastId = minId - 1;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advance(long lastId, long affectedRows) {
+        this.lastId = lastId;
+        this.chunks++;
+        this.affectedRows += affectedRows;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isDone() {
+        return lastId >= maxId;
+    }
+}
@@ -4,15 +4,28 @@ import lombok.*;
 
 import javax.persistence.*;
 
+/**
+ * 회원 검색 조건용 인덱스
+ * - 회원명 : user_name
+ * - 나이 범위 : age
+ * - 팀 + 나이 범위 : (team_id, age)
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_user_name", columnList = "user_name"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "userName", "age"})
 @AllArgsConstructor
 public class Member {
 
+    // allocationSize 만큼 시퀀스를 한 번에 가져온다. (pooled optimizer) -> 배치 insert 시 시퀀스 조회 최소화
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
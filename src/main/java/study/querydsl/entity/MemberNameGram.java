@@ -0,0 +1,37 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * 회원명 검색 인덱스 (회원명의 소문자 3-gram)
+ * 회원 저장, 수정, 삭제 시 MemberNameGramListener 가 갱신한다.
+ * 벌크 update, delete 는 바뀐 회원을 알 수 없으므로 커밋 후 MemberNameGramListener 가 전체를 다시 만든다.
+ */
+@Entity
+@IdClass(MemberNameGram.Key.class)
+@Table(indexes = @Index(name = "idx_member_name_gram_gram", columnList = "gram, member_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberNameGram {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Id
+    @Column(length = 3)
+    private String gram;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long memberId;
+        private String gram;
+    }
+}
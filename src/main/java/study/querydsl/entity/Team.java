@@ -1,12 +1,20 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 수정이 드물고 모든 회원이 참조하므로 2차 캐시 사용
+ * members 컬렉션은 캐시하지 않는다. (컬렉션 캐시는 회원 id 만 가지므로 Member 가 캐시되지 않으면 회원 수 만큼 조회가 나간다.)
+ */
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
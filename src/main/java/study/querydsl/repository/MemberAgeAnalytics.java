@@ -0,0 +1,206 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.event.EntityChange;
+import study.querydsl.repository.event.EntityChangeEvent;
+import study.querydsl.repository.support.MemberAgeColumns;
+import study.querydsl.repository.support.MemberAgeColumns.Aggregate;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 회원 나이 집계 (querydsl.analytics.enabled)
+ * 시작 시 회원 나이, 팀을 컬럼 저장소(MemberAgeColumns)에 올려 두고
+ * count, sum, avg, min, max 와 팀별 집계를 DB 조회 없이 계산한다.
+ * 이후에는 커밋된 엔티티 변경 이벤트(EntityChangeEvent)로 추가, 변경, 삭제를 반영하고
+ * 벌크 update, delete 가 있으면 별도 스레드에서 전체를 다시 읽는다.
+ */
+@Slf4j
+@Component
+public class MemberAgeAnalytics {
+
+    private static final String COUNT_SQL = "select count(*) from member";
+    private static final String MEMBER_SQL = "select member_id, age, team_id from member order by member_id";
+    private static final String TEAM_SQL = "select id, name from team";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private volatile MemberAgeColumns columns = new MemberAgeColumns();
+    private volatile boolean loaded;
+    private final Map<Long, String> teamNames = new ConcurrentHashMap<>();
+    // 전체 적재 중에 들어온 변경, 적재가 끝나면 새 저장소에 다시 반영한다. (this 로 동기화)
+    private List<Consumer<MemberAgeColumns>> pending;
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    // 전체 다시 읽기는 한 번에 하나씩 (벌크 변경, 직접 호출이 겹칠 수 있다.)
+    private final Object reloadLock = new Object();
+    private final ExecutorService reloader =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("member-age-analytics-"));
+
+    public MemberAgeAnalytics(JdbcTemplate jdbcTemplate,
+                              @Value("${querydsl.analytics.enabled:false}") boolean enabled,
+                              @Value("${querydsl.stream.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        reloader.shutdownNow();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 전체 다시 읽기 (회원 수 만큼 미리 배열을 잡고, 행은 fetch-size 단위로 읽는다.)
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            MemberAgeColumns reloaded;
+            Map<Long, String> names = new ConcurrentHashMap<>();
+            try {
+                Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+                reloaded = new MemberAgeColumns(Math.toIntExact(count != null ? count : 0));
+                jdbcTemplate.query(TEAM_SQL, resultSet -> {
+                    names.put(resultSet.getLong(1), resultSet.getString(2));
+                });
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(MEMBER_SQL);
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                }, resultSet -> {
+                    long teamId = resultSet.getLong(3);
+                    reloaded.append(resultSet.getLong(1), resultSet.getInt(2), resultSet.wasNull() ? null : teamId);
+                });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                // 변경은 행 전체 상태를 덮어쓰므로 이미 읽은 내용에 다시 반영해도 결과가 같다.
+                pending.forEach(change -> change.accept(reloaded));
+                pending = null;
+                teamNames.putAll(names);
+                columns = reloaded;
+                loaded = true;
+            }
+            log.info("회원 나이 집계 적재 {}건", reloaded.size());
+        }
+    }
+
+    /**
+     * 회원 추가 또는 나이, 팀 변경
+     */
+    public void append(long memberId, int age, Long teamId) {
+        apply(current -> current.append(memberId, age, teamId));
+    }
+
+    public void remove(long memberId) {
+        apply(current -> current.remove(memberId));
+    }
+
+    /**
+     * 팀 추가 또는 팀명 변경
+     */
+    public void putTeam(long teamId, String name) {
+        teamNames.put(teamId, name);
+    }
+
+    /**
+     * 전체 회원 나이 집계
+     */
+    public Aggregate ageStatistics() {
+        return columns.aggregate();
+    }
+
+    /**
+     * 팀명별 회원 나이 집계 (팀명 순, 팀 없는 회원 제외)
+     */
+    public Map<String, Aggregate> ageStatisticsByTeamName() {
+        Map<String, Aggregate> result = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        for (Map.Entry<Long, Aggregate> entry : columns.aggregateByTeam().entrySet()) {
+            String name = teamNames.get(entry.getKey());
+            Aggregate previous = result.get(name);
+            // 같은 이름의 팀이 여럿이면 합친다. (DB 의 group by team.name 과 같은 결과)
+            result.put(name, previous == null ? entry.getValue() : previous.merge(entry.getValue()));
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onChange(EntityChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (EntityChange change : event.getChanges(Team.class)) {
+            Long teamId = (Long) change.getId();
+            if (change.getType() == EntityChange.Type.DELETE) {
+                teamNames.remove(teamId);
+            } else {
+                putTeam(teamId, (String) change.get("name"));
+            }
+        }
+        for (EntityChange change : event.getChanges(Member.class)) {
+            Long memberId = (Long) change.getId();
+            if (change.getType() == EntityChange.Type.DELETE) {
+                remove(memberId);
+            } else {
+                append(memberId, (Integer) change.get("age"), (Long) change.get("team"));
+            }
+        }
+
+        if ((event.isBulkChanged(Member.class) || event.isBulkChanged(Team.class))
+                && reloadRequested.compareAndSet(false, true)) {
+            reloader.execute(() -> {
+                reloadRequested.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.warn("회원 나이 집계 다시 읽기 실패", e);
+                }
+            });
+        }
+    }
+
+    private synchronized void apply(Consumer<MemberAgeColumns> change) {
+        change.accept(columns);
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.InvalidSearchException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 조회 시 선택할 수 있는 필드 (fields= 파라미터)
+ * teamId 는 member 의 외래 키(team_id)라서 팀을 조인하지 않는다.
+ */
+public enum MemberField {
+
+    MEMBER_ID("memberId", member.id, false),
+    USER_NAME("userName", member.userName, false),
+    AGE("age", member.age, false),
+    TEAM_ID("teamId", member.team.id, false),
+    TEAM_NAME("teamName", team.name, true);
+
+    private final String fieldName;
+    private final Expression<?> path;
+    private final boolean teamJoin;
+
+    MemberField(String fieldName, Expression<?> path, boolean teamJoin) {
+        this.fieldName = fieldName;
+        this.path = path;
+        this.teamJoin = teamJoin;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Expression<?> getPath() {
+        return path;
+    }
+
+    public boolean isTeamJoin() {
+        return teamJoin;
+    }
+
+    /**
+     * "userName,age" -> [USER_NAME, AGE], 요청한 순서를 유지하고 중복은 제거한다.
+     * 비어있으면 전체 필드
+     */
+    public static List<MemberField> parse(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return List.of(values());
+        }
+        Set<MemberField> result = new LinkedHashSet<>();
+        for (String fieldName : StringUtils.commaDelimitedListToStringArray(fields)) {
+            result.add(of(fieldName.trim()));
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new InvalidSearchException("알 수 없는 필드: " + fieldName);
+    }
+}
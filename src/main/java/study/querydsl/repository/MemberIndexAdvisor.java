@@ -0,0 +1,137 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static study.querydsl.dto.MemberSearchCondition.*;
+
+/**
+ * 회원 검색 인덱스 어드바이저 (/actuator/indexadvisor)
+ * 검색 조건 모양(shape)별 호출 횟수와 H2 실행 계획(EXPLAIN)을 보고
+ * 인덱스 없이 테이블 전체를 읽는 shape 를 호출 횟수 순으로 알려준다.
+ * 호출 횟수는 RepositoryMetricsAspect 가 기록한 repository.query 메트릭을 사용한다.
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+public class MemberIndexAdvisor {
+
+    private static final String TABLE_SCAN = "tableScan";
+
+    private final MemberSearchQueryCache memberSearchQueryCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public MemberIndexAdvisor(MemberSearchQueryCache memberSearchQueryCache,
+                              EntityManagerFactory entityManagerFactory,
+                              JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry) {
+        this.memberSearchQueryCache = memberSearchQueryCache;
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 전체 테이블 스캔이 남아있는 shape, 호출 횟수가 많은 순
+     */
+    @ReadOperation
+    public List<ShapeReport> fullScans() {
+        List<ShapeReport> result = new ArrayList<>();
+        for (ShapeReport report : reports()) {
+            if (report.isFullScan()) {
+                result.add(report);
+            }
+        }
+        return result;
+    }
+
+    public List<ShapeReport> reports() {
+        List<ShapeReport> reports = new ArrayList<>();
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            reports.add(new ShapeReport(shape, describe(shape), usage(shape), explain(shape)));
+        }
+        reports.sort(Comparator.comparingLong(ShapeReport::getUsage).reversed());
+        return reports;
+    }
+
+    private long usage(int shape) {
+        long usage = 0;
+        for (Timer timer : meterRegistry.find("repository.query").tag("shape", String.valueOf(shape)).timers()) {
+            usage += timer.count();
+        }
+        return usage;
+    }
+
+    private String explain(int shape) {
+        String jpql = memberSearchQueryCache.getContentJpql(shape);
+        String sql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getSqlStrings()[0];
+
+        // 실행 계획만 보므로 값은 아무거나 바인딩 (where 절 순서: 회원명, 팀명, 나이 이상, 나이 이하)
+        List<Object> args = new ArrayList<>();
+        if ((shape & USER_NAME) != 0) {
+            args.add("");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            args.add("");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            args.add(0);
+        }
+        if ((shape & AGE_LOE) != 0) {
+            args.add(0);
+        }
+
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args.toArray());
+        return String.join("\n", plan);
+    }
+
+    private static String describe(int shape) {
+        List<String> conditions = new ArrayList<>();
+        if ((shape & USER_NAME) != 0) {
+            conditions.add("userName");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            conditions.add("teamName");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            conditions.add("ageGoe");
+        }
+        if ((shape & AGE_LOE) != 0) {
+            conditions.add("ageLoe");
+        }
+        return conditions.isEmpty() ? "(none)" : String.join(", ", conditions);
+    }
+
+    @Getter
+    public static class ShapeReport {
+        private final int shape;
+        private final String conditions;
+        private final long usage;
+        private final boolean fullScan;
+        private final String plan;
+
+        ShapeReport(int shape, String conditions, long usage, String plan) {
+            this.shape = shape;
+            this.conditions = conditions;
+            this.usage = usage;
+            this.fullScan = plan.contains(TABLE_SCAN);
+            this.plan = plan;
+        }
+    }
+}
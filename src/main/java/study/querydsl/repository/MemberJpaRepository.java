@@ -1,53 +1,109 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.BulkInsertResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkJobProgress;
+import study.querydsl.repository.support.BulkJobRunner;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberNameSearch.userNameContains;
+import static study.querydsl.repository.MemberNameSearch.userNameStartsWith;
 
 @Repository
 public class MemberJpaRepository {
 
     private final EntityManager entityManager;
     private final JPAQueryFactory jpaQueryFactory;
-
-    public MemberJpaRepository(EntityManager entityManager) {
+    private final MemberSearchQueryCache memberSearchQueryCache;
+    private final BulkJobRunner bulkJobRunner;
+    private final MemberSnapshot memberSnapshot;
+    private final int streamFetchSize;
+    private final int streamClearInterval;
+    private final int batchSize;
+
+    public MemberJpaRepository(EntityManager entityManager,
+                               MemberSearchQueryCache memberSearchQueryCache,
+                               BulkJobRunner bulkJobRunner,
+                               MemberSnapshot memberSnapshot,
+                               @Value("${querydsl.stream.fetch-size:500}") int streamFetchSize,
+                               @Value("${querydsl.stream.clear-interval:1000}") int streamClearInterval,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
         this.entityManager = entityManager;
         this.jpaQueryFactory = new JPAQueryFactory(entityManager); // Bean 으로 주입받아 사용할 수도 있다.
+        this.memberSearchQueryCache = memberSearchQueryCache;
+        this.bulkJobRunner = bulkJobRunner;
+        this.memberSnapshot = memberSnapshot;
+        this.streamFetchSize = streamFetchSize;
+        this.streamClearInterval = streamClearInterval;
+        this.batchSize = batchSize;
     }
 
+    @Transactional
     public void save(Member member) {
         entityManager.persist(member);
     }
 
+    /**
+     * 대량 저장
+     * hibernate.jdbc.batch_size 건마다 flush(= 배치 insert 1회) 하고 영속성 컨텍스트를 비운다.
+     * 팀 연관관계는 changeTeam 을 쓰면 팀의 members 컬렉션에 계속 쌓이므로 setTeam 으로 넣을 것
+     */
+    @Transactional
+    public BulkInsertResult saveAll(Iterable<Member> members) {
+        long start = System.nanoTime();
+        long count = 0;
+        for (Member member : members) {
+            entityManager.persist(member);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        return new BulkInsertResult(count, System.nanoTime() - start);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Member> findById(Long id) {
         Member findMember = entityManager.find(Member.class, id);
         return Optional.ofNullable(findMember);
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
         return entityManager.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl() {
         return jpaQueryFactory
                 .selectFrom(member)
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUserName(String userName) {
         String jpql = "select m from Member m where m.userName = :userName";
         return entityManager.createQuery(jpql, Member.class)
@@ -55,6 +111,7 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUserName_Querydsl(String userName) {
         return jpaQueryFactory
                 .selectFrom(member)
@@ -62,37 +119,38 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * BooleanBuilder, where 다중 파라미터 어느 쪽으로 만들어도 조건 조합별 JPQL 은 같으므로
+     * 둘 다 검색 조건 모양(shape) 캐시를 사용한다.
+     */
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+        return memberSearchQueryCache.search(condition);
+    }
 
-        BooleanBuilder booleanBuilder = new BooleanBuilder();
-        if (StringUtils.hasText(condition.getUserName())) {
-            booleanBuilder.and(member.userName.eq(condition.getUserName()));
-        }
-        if (StringUtils.hasText(condition.getTeamName())) {
-            booleanBuilder.and(team.name.eq(condition.getTeamName()));
-        }
-        if (condition.getAgeGoe() != null) {
-            booleanBuilder.and(member.age.goe(condition.getAgeGoe()));
-        }
-        if (condition.getAgeLoe() != null) {
-            booleanBuilder.and(member.age.loe(condition.getAgeLoe()));
+    /**
+     * 스냅샷이 최신이면 DB 대신 스냅샷에서 검색 (쓰기 트랜잭션 안에서는 자기 변경을 봐야 하므로 DB)
+     */
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (memberSnapshot.isFresh() && MemberSearchCacheEvictor.cacheable()) {
+            return memberSnapshot.search(condition);
         }
-
-        return jpaQueryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(booleanBuilder)
-                .fetch();
+        return memberSearchQueryCache.search(condition);
     }
 
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return jpaQueryFactory
+    /**
+     * 대용량 조회용 스트리밍
+     * 결과를 List 로 모으지 않고 JDBC fetch size 단위로 읽으면서 한 건씩 action 에 넘긴다.
+     * clearInterval 건마다 영속성 컨텍스트를 비워서 결과 크기와 상관없이 메모리 사용량이 일정하다.
+     * (기존 트랜잭션에 참여하면 그 영속성 컨텍스트도 같이 비워지므로 주의)
+     *
+     * @return 처리한 건수
+     */
+    @Transactional(readOnly = true)
+    public long searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> action) {
+        long count = 0;
+        try (Stream<MemberTeamDto> stream = jpaQueryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.userName,
@@ -105,9 +163,62 @@ public class MemberJpaRepository {
                         userNameEq(condition.getUserName()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        userNameContains(condition.getUserNameContains()),
+                        userNameStartsWith(condition.getUserNameStartsWith())
                 )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, streamFetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .stream()) {
+
+            for (MemberTeamDto dto : (Iterable<MemberTeamDto>) stream::iterator) {
+                action.accept(dto);
+                if (++count % streamClearInterval == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 검색 조건에 맞는 회원 나이 일괄 증가 (청크 단위, 트랜잭션 밖에서 호출)
+     * 중간에 실패하면 같은 jobName 으로 다시 호출해서 이어서 처리한다.
+     */
+    public BulkJobProgress addAgeInChunks(String jobName, MemberSearchCondition condition, int amount) {
+        return bulkJobRunner.run(jobName, member, member.id, bulkCondition(condition),
+                (queryFactory, chunk) -> queryFactory
+                        .update(member)
+                        .set(member.age, member.age.add(amount))
+                        .where(chunk)
+                        .execute());
+    }
+
+    public BulkJobProgress deleteInChunks(String jobName, MemberSearchCondition condition) {
+        return bulkJobRunner.run(jobName, member, member.id, bulkCondition(condition),
+                (queryFactory, chunk) -> queryFactory
+                        .delete(member)
+                        .where(chunk)
+                        .execute());
+    }
+
+    /**
+     * 벌크 update, delete 는 조인을 쓸 수 없으므로 팀명 조건은 서브쿼리로 바꾼다.
+     */
+    private BooleanExpression bulkCondition(MemberSearchCondition condition) {
+        BooleanExpression teamNameIn = StringUtils.hasText(condition.getTeamName())
+                ? member.team.id.in(JPAExpressions
+                        .select(team.id)
+                        .from(team)
+                        .where(team.name.eq(condition.getTeamName())))
+                : null;
+        return Expressions.allOf(
+                userNameEq(condition.getUserName()),
+                teamNameIn,
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                userNameContains(condition.getUserNameContains()),
+                userNameStartsWith(condition.getUserNameStartsWith()));
     }
 
     private BooleanExpression userNameEq(String userName) {
@@ -0,0 +1,300 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.event.EntityChangeEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 회원 insert, update(회원명 변경), delete 시 회원명 3-gram 인덱스(member_name_gram) 갱신
+ * flush 중에는 세션별로 변경만 모아 두고, flush 가 끝나면 delete, insert 를 각각 JDBC 배치 한 번으로 쓴다.
+ * (같은 트랜잭션, 같은 커넥션, Hibernate 가 준비하므로 StatementInspector, 통계에도 잡힌다.)
+ * 벌크 update, delete 는 바뀐 회원을 알 수 없으므로 커밋 후 별도 스레드에서 전체를 다시 만든다.
+ */
+@Slf4j
+@Component
+public class MemberNameGramListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, FlushEventListener, AutoFlushEventListener {
+
+    private static final String INSERT_SQL = "insert into member_name_gram (member_id, gram) values (?, ?)";
+    private static final String DELETE_SQL = "delete from member_name_gram where member_id = ?";
+    private static final String USER_NAME = "userName";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // 아직 쓰지 않은 세션별 변경 (트랜잭션이 끝나면 제거)
+    private final Map<SessionImplementor, PendingGrams> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private final ExecutorService rebuilder =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("member-name-gram-"));
+
+    public MemberNameGramListener(EntityManagerFactory entityManagerFactory, EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        // 기본 flush 리스너 뒤에 실행된다.
+        registry.appendListeners(EventType.FLUSH, this);
+        registry.appendListeners(EventType.AUTO_FLUSH, this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            pending(event.getSession()).index(member.getId(), member.getUserName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        int index = userNameIndex(event.getPersister());
+        // 이전 상태를 모르면(준영속 update) 다시 만든다.
+        if (event.getOldState() != null && Objects.equals(event.getOldState()[index], event.getState()[index])) {
+            return;
+        }
+        PendingGrams grams = pending(event.getSession());
+        grams.delete((Long) event.getId());
+        grams.index((Long) event.getId(), (String) event.getState()[index]);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            pending(event.getSession()).delete((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        write(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        write(event.getSession());
+    }
+
+    /**
+     * 트랜잭션 안에서만 갱신하면 되므로 커밋 후 처리는 필요 없다.
+     */
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 벌크 update, delete 가 커밋되면 전체를 다시 만든다. (여러 번 와도 한 번만 대기)
+     */
+    @EventListener
+    public void onChange(EntityChangeEvent event) {
+        if (event.isBulkChanged(Member.class) && rebuildRequested.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildRequested.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("회원명 n-gram 다시 만들기 실패", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 전체 다시 만들기 (벌크 update, delete 후 또는 기존 데이터 적재 시)
+     * 진행 중인 트랜잭션이 있으면 참여한다.
+     *
+     * @return 인덱싱한 회원 수
+     */
+    public long rebuild() {
+        Long indexed = transactionTemplate.execute(status -> {
+            long[] count = {0};
+            entityManager.unwrap(Session.class).doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("delete from member_name_gram");
+                }
+                try (Statement select = connection.createStatement();
+                     ResultSet resultSet = select.executeQuery("select member_id, user_name from member");
+                     PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                    int rows = 0;
+                    while (resultSet.next()) {
+                        rows += addGrams(insert, resultSet.getLong(1), resultSet.getString(2));
+                        count[0]++;
+                        if (rows >= batchSize) {
+                            insert.executeBatch();
+                            rows = 0;
+                        }
+                    }
+                    if (rows > 0) {
+                        insert.executeBatch();
+                    }
+                }
+            });
+            return count[0];
+        });
+        return indexed != null ? indexed : 0;
+    }
+
+    private PendingGrams pending(SessionImplementor session) {
+        return pending.computeIfAbsent(session, key -> {
+            // 커밋 flush 뒤에 남은 변경(IDENTITY insert 등)을 쓰고, 트랜잭션이 끝나면(롤백 포함) 버린다.
+            key.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::write);
+            key.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> pending.remove(key));
+            return new PendingGrams();
+        });
+    }
+
+    private void write(SessionImplementor session) {
+        PendingGrams grams = pending.get(session);
+        if (grams == null || grams.isEmpty()) {
+            return;
+        }
+        if (!grams.deletes.isEmpty()) {
+            executeBatch(session, DELETE_SQL, statement -> {
+                for (Long memberId : grams.deletes) {
+                    statement.setLong(1, memberId);
+                    statement.addBatch();
+                }
+            });
+        }
+        if (!grams.userNames.isEmpty()) {
+            executeBatch(session, INSERT_SQL, statement -> {
+                for (Map.Entry<Long, String> entry : grams.userNames.entrySet()) {
+                    addGrams(statement, entry.getKey(), entry.getValue());
+                }
+            });
+        }
+        grams.clear();
+    }
+
+    private static void executeBatch(SessionImplementor session, String sql, BatchBinder binder) {
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            binder.bind(statement);
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "회원명 n-gram 갱신 실패", sql);
+        } finally {
+            jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbcCoordinator.afterStatementExecution();
+        }
+    }
+
+    private static int addGrams(PreparedStatement statement, Long memberId, String userName) throws SQLException {
+        Set<String> grams = MemberNameSearch.grams(userName);
+        for (String gram : grams) {
+            statement.setLong(1, memberId);
+            statement.setString(2, gram);
+            statement.addBatch();
+        }
+        return grams.size();
+    }
+
+    private static int userNameIndex(EntityPersister persister) {
+        String[] propertyNames = persister.getPropertyNames();
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (USER_NAME.equals(propertyNames[i])) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Member." + USER_NAME + " 속성이 없습니다.");
+    }
+
+    private interface BatchBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * 한 세션에서 아직 쓰지 않은 변경
+     * 기존 행을 지울 회원과, 새로 만들 회원명(삭제면 없음)을 회원별 최종 상태로 모은다.
+     */
+    private static class PendingGrams {
+        final Set<Long> deletes = new LinkedHashSet<>();
+        final Map<Long, String> userNames = new LinkedHashMap<>();
+
+        void index(Long memberId, String userName) {
+            userNames.put(memberId, userName);
+        }
+
+        void delete(Long memberId) {
+            deletes.add(memberId);
+            userNames.remove(memberId);
+        }
+
+        boolean isEmpty() {
+            return deletes.isEmpty() && userNames.isEmpty();
+        }
+
+        void clear() {
+            deletes.clear();
+            userNames.clear();
+        }
+    }
+}
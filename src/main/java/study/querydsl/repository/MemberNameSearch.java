@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberNameGram.memberNameGram;
+
+/**
+ * 회원명 부분 검색 조건
+ * - 앞부분 일치 : like 'x%' -> user_name 인덱스 범위 검색 (대소문자 구분)
+ * - 포함 : 3-gram 인덱스(member_name_gram)로 후보 회원을 찾고 후보만 like 로 확인 (대소문자 무시)
+ *   3 글자 미만은 gram 을 만들 수 없으므로 like '%x%' 로 검색한다.
+ */
+public final class MemberNameSearch {
+
+    public static final int GRAM_SIZE = 3;
+
+    private MemberNameSearch() {
+    }
+
+    public static BooleanExpression userNameStartsWith(String prefix) {
+        return StringUtils.hasText(prefix) ? member.userName.startsWith(prefix) : null;
+    }
+
+    public static BooleanExpression userNameContains(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return null;
+        }
+        Set<String> grams = grams(keyword);
+        if (grams.isEmpty()) {
+            return member.userName.containsIgnoreCase(keyword);
+        }
+        // 모든 gram 을 가진 회원만 후보 -> 후보 중 실제로 포함하는 회원
+        return member.id.in(JPAExpressions
+                        .select(memberNameGram.memberId)
+                        .from(memberNameGram)
+                        .where(memberNameGram.gram.in(grams))
+                        .groupBy(memberNameGram.memberId)
+                        .having(memberNameGram.gram.countDistinct().eq((long) grams.size())))
+                .and(member.userName.containsIgnoreCase(keyword));
+    }
+
+    /**
+     * 소문자 3-gram, 3 글자 미만이면 빈 집합
+     */
+    public static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + GRAM_SIZE <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
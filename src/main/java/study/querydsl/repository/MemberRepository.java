@@ -1,11 +1,82 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.core.types.dsl.StringPath;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.querydsl.binding.QuerydslBinderCustomizer;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
+import study.querydsl.dto.InvalidSearchException;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static study.querydsl.entity.QTeam.team;
+
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom,
+        QuerydslPredicateExecutor<Member>, QuerydslBinderCustomizer<QMember> {
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
     List<Member> findByUserName(String userName);
+
+    /**
+     * 웹 요청 파라미터 -> Predicate 바인딩 (@QuerydslPredicate)
+     * 인덱스가 있는 속성만 허용하고 나머지 파라미터는 무시한다.
+     * - id, team.id, team.name : 일치
+     *   team.name 은 조인 별칭 team 으로 바인딩한다. (member.team.name 경로면 searchByPredicate 의 조인에 암묵적 조인이 하나 더 붙는다.)
+     *   그래서 이 Predicate 는 팀을 team 별칭으로 조인하는 searchByPredicate 에서만 쓸 것
+     * - userName : 일치 (member1), 접두어 (mem*), 포함 (*mber* - 3-gram 인덱스, 3자 이상)
+     *   앞쪽만 * 인 검색과 3자 미만 포함 검색은 인덱스를 못 타므로 거부한다.
+     * - age : 값 하나면 일치, 두 개면 범위 (age=20&age=30)
+     */
+    @Override
+    default void customize(QuerydslBindings bindings, QMember root) {
+        bindings.excludeUnlistedProperties(true);
+        bindings.including(root.id, root.userName, root.age, root.team.id, root.team.name);
+
+        bindings.bind(root.id, root.team.id).first(SimpleExpression::eq);
+        bindings.bind(root.team.name).first((path, value) -> team.name.eq(value));
+        bindings.bind(root.userName).first(MemberRepository::userName);
+        bindings.bind(root.age).all((path, values) -> Optional.of(age(path, values)));
+    }
+
+    private static Predicate userName(StringPath path, String value) {
+        boolean prefixWildcard = value.startsWith("*");
+        boolean suffixWildcard = value.endsWith("*") && value.length() > 1;
+        String keyword = value.substring(prefixWildcard ? 1 : 0, value.length() - (suffixWildcard ? 1 : 0));
+
+        if (keyword.isEmpty() || keyword.contains("*")) {
+            throw new InvalidSearchException("userName 검색어가 올바르지 않습니다: " + value);
+        }
+        if (prefixWildcard && suffixWildcard) {
+            if (keyword.length() < MemberNameSearch.GRAM_SIZE) {
+                throw new InvalidSearchException(
+                        "userName 포함 검색은 " + MemberNameSearch.GRAM_SIZE + "자 이상이어야 합니다: " + value);
+            }
+            return MemberNameSearch.userNameContains(keyword);
+        }
+        if (prefixWildcard) {
+            throw new InvalidSearchException("userName 뒷부분 검색은 지원하지 않습니다: " + value);
+        }
+        if (suffixWildcard) {
+            return MemberNameSearch.userNameStartsWith(keyword);
+        }
+        return path.eq(keyword);
+    }
+
+    private static Predicate age(NumberPath<Integer> path, Collection<? extends Integer> values) {
+        List<Integer> ages = new ArrayList<>(values);
+        if (ages.size() == 1) {
+            return path.eq(ages.get(0));
+        }
+        if (ages.size() == 2) {
+            return path.between(Math.min(ages.get(0), ages.get(1)), Math.max(ages.get(0), ages.get(1)));
+        }
+        throw new InvalidSearchException("age 는 값 하나(일치) 또는 두 개(범위)만 허용합니다: " + ages);
+    }
 }
@@ -1,11 +1,16 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.CountStrategy;
 
 import java.util.List;
+import java.util.Map;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
@@ -13,4 +18,19 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    List<Map<String, Object>> search(MemberSearchCondition condition, List<MemberField> fields);
+
+    Page<Map<String, Object>> searchPageComplex(MemberSearchCondition condition, Pageable pageable,
+                                                CountStrategy countStrategy, List<MemberField> fields);
+
+    Slice<Map<String, Object>> searchSlice(MemberSearchCondition condition, Pageable pageable, List<MemberField> fields);
+
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, int size);
+
+    Page<MemberTeamDto> searchByPredicate(Predicate predicate, Pageable pageable);
 }
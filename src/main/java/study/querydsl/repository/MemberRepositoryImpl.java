@@ -1,52 +1,100 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.InvalidSearchException;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.PageCounter;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberNameSearch.userNameContains;
+import static study.querydsl.repository.MemberNameSearch.userNameStartsWith;
 
+/**
+ * 모든 메서드가 조회이므로 읽기 전용 트랜잭션 (복제본 라우팅 사용 시 복제본에서 읽는다.)
+ */
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String CACHEABLE = "T(study.querydsl.repository.MemberSearchCacheEvictor).cacheable()";
+
+    // searchByPredicate 정렬 가능 속성 (인덱스가 있는 컬럼)
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = Map.of(
+            "id", member.id,
+            "userName", member.userName,
+            "age", member.age);
+
     private final EntityManager entityManager;
 
     private final JPAQueryFactory jpaQueryFactory;
 
-    public MemberRepositoryImpl(EntityManager entityManager) {
+    private final ParallelQueryExecutor parallelQueryExecutor;
+
+    private final MemberSearchQueryCache memberSearchQueryCache;
+
+    private final PageCounter pageCounter;
+
+    private final MemberSnapshot memberSnapshot;
+
+    public MemberRepositoryImpl(EntityManager entityManager,
+                                ParallelQueryExecutor parallelQueryExecutor,
+                                MemberSearchQueryCache memberSearchQueryCache,
+                                PageCounter pageCounter,
+                                MemberSnapshot memberSnapshot) {
         this.entityManager = entityManager;
         this.jpaQueryFactory = new JPAQueryFactory(entityManager);
+        this.parallelQueryExecutor = parallelQueryExecutor;
+        this.memberSearchQueryCache = memberSearchQueryCache;
+        this.pageCounter = pageCounter;
+        this.memberSnapshot = memberSnapshot;
     }
 
+    /**
+     * 검색 조건 모양별로 미리 만들어 둔 JPQL 에 값만 바인딩해서 조회
+     * 결과는 회원, 팀 쓰기가 있을 때까지 캐시 (MemberSearchCacheEvictor)
+     * 스냅샷이 최신이면 DB 대신 스냅샷에서 검색
+     */
     @Override
+    @Cacheable(cacheNames = MemberSearchCacheEvictor.MEMBER_SEARCH, keyGenerator = "memberSearchKeyGenerator",
+            condition = CACHEABLE)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return jpaQueryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        if (memberSnapshot.isFresh() && MemberSearchCacheEvictor.cacheable()) {
+            return memberSnapshot.search(condition);
+        }
+        return memberSearchQueryCache.search(condition);
     }
 
     /**
@@ -54,68 +102,209 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      * 데이터 조회 쿼리와, 전체 카운트 쿼리를 분리
      */
     @Override
+    @Cacheable(cacheNames = MemberSearchCacheEvictor.MEMBER_SEARCH_PAGE, keyGenerator = "memberSearchKeyGenerator",
+            condition = CACHEABLE)
     public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = jpaQueryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
-
-        Long count = jpaQueryFactory
-                .select(member.count())
-                .from(member)
-//                .leftJoin(member.team, team)
-                .where(
-                        userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetchOne();
+        List<MemberTeamDto> content = memberSearchQueryCache.search(
+                condition, pageable.getOffset(), pageable.getPageSize());
 
+        long count = memberSearchQueryCache.count(condition);
 
         return new PageImpl<>(content, pageable, count);
     }
 
+    /**
+     * 카운트 쿼리 없는 페이징 (무한 스크롤)
+     * pageSize + 1 건을 조회해서 다음 페이지 여부만 판단한다.
+     * 정렬은 SORTABLE 속성만 허용하고 마지막에 id 로 정렬해서 이어지는 slice 가 겹치거나 빠지지 않게 한다.
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = memberTeamDtoQuery(jpaQueryFactory, condition)
+                .orderBy(orderBy(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        return Querydsl4RepositorySupport.toSlice(content, pageable);
+    }
+
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = getMemberTeamDtos(condition, pageable);
+        return searchPageComplex(condition, pageable, CountStrategy.EXACT);
+    }
+
+    /**
+     * 넓은 조건(조건 없음 등)에서는 카운트 쿼리가 테이블 전체를 읽으므로
+     * 캐시된 카운트(CACHED)나 통계 추정치(ESTIMATED)를 쓸 수 있다.
+     */
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable,
+                                                 CountStrategy countStrategy) {
+        if (countStrategy == CountStrategy.EXACT && parallelQueryExecutor.isEnabled()) {
+            return searchPageComplexParallel(condition, pageable);
+        }
 
-        JPAQuery<Long> countQuery = getCount(condition);
+        List<MemberTeamDto> content = getMemberTeamDtos(jpaQueryFactory, condition, pageable,
+                PageCounter.fetchSize(pageable, countStrategy));
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        JPAQuery<Long> countQuery = getCount(jpaQueryFactory, condition);
+
+        return pageCounter.getPage(content, pageable, countQuery, countStrategy);
 //        return new PageImpl<>(content, pageable, count);
     }
 
-    private JPAQuery<Long> getCount(MemberSearchCondition condition) {
-        JPAQuery<Long> countQuery = jpaQueryFactory
+    /**
+     * 데이터 조회 쿼리와 카운트 쿼리를 각각 다른 커넥션에서 동시에 실행
+     * 응답 시간이 두 쿼리의 합이 아니라 둘 중 느린 쪽이 된다.
+     * 카운트가 필요 없는 페이지(첫 페이지, 마지막 페이지)면 카운트 결과는 버린다.
+     */
+    private Page<MemberTeamDto> searchPageComplexParallel(MemberSearchCondition condition, Pageable pageable) {
+        CompletableFuture<List<MemberTeamDto>> contentFuture =
+                parallelQueryExecutor.submit(queryFactory -> getMemberTeamDtos(queryFactory, condition, pageable,
+                        pageable.getPageSize()));
+        CompletableFuture<Long> countFuture =
+                parallelQueryExecutor.submit(queryFactory -> getCount(queryFactory, condition).fetchOne());
+
+        try {
+            List<MemberTeamDto> content = ParallelQueryExecutor.join(contentFuture);
+            return PageableExecutionUtils.getPage(content, pageable, () -> ParallelQueryExecutor.join(countFuture));
+        } finally {
+            countFuture.cancel(false);
+        }
+    }
+
+    private JPAQuery<Long> getCount(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        JPAQuery<Long> countQuery = queryFactory
                 .select(member.count())
+                .from(member);
+
+        // 팀명 조건이 있을 때만 팀을 조인한다.
+        if (StringUtils.hasText(condition.getTeamName())) {
+            countQuery.join(member.team, team);
+        }
+
+        return countQuery.where(
+                userNameEq(condition.getUserName()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                userNameContains(condition.getUserNameContains()),
+                userNameStartsWith(condition.getUserNameStartsWith())
+        );
+    }
+
+    private List<MemberTeamDto> getMemberTeamDtos(JPAQueryFactory queryFactory, MemberSearchCondition condition,
+                                                  Pageable pageable, long limit) {
+        List<MemberTeamDto> content = memberTeamDtoQuery(queryFactory, condition)
+                .offset(pageable.getOffset())
+                .limit(limit)
+                .fetch();
+
+        return content;
+    }
+
+    private JPAQuery<MemberTeamDto> memberTeamDtoQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.userName,
+                        member.age,
+                        team.id,
+                        team.name))
                 .from(member)
-//                .leftJoin(member.team, team)
+                .leftJoin(member.team, team)
                 .where(
                         userNameEq(condition.getUserName()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        userNameContains(condition.getUserNameContains()),
+                        userNameStartsWith(condition.getUserNameStartsWith())
                 );
+    }
+
+    /**
+     * 요청한 필드만 조회 (fields= 파라미터)
+     * 팀 필드(teamName)나 팀명 조건이 없으면 팀을 조인하지 않는다.
+     */
+    @Override
+    public List<Map<String, Object>> search(MemberSearchCondition condition, List<MemberField> fields) {
+        return toMaps(getFieldsQuery(condition, fields).fetch(), fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageComplex(MemberSearchCondition condition, Pageable pageable,
+                                                       CountStrategy countStrategy, List<MemberField> fields) {
+        List<Tuple> rows = getFieldsQuery(condition, fields)
+                .offset(pageable.getOffset())
+                .limit(PageCounter.fetchSize(pageable, countStrategy))
+                .fetch();
+
+        JPAQuery<Long> countQuery = getCount(jpaQueryFactory, condition);
+
+        return pageCounter.getPage(toMaps(rows, fields), pageable, countQuery, countStrategy);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> searchSlice(MemberSearchCondition condition, Pageable pageable,
+                                                  List<MemberField> fields) {
+        List<Tuple> rows = getFieldsQuery(condition, fields)
+                .orderBy(orderBy(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        return Querydsl4RepositorySupport.toSlice(toMaps(rows, fields), pageable);
+    }
+
+    private JPAQuery<Tuple> getFieldsQuery(MemberSearchCondition condition, List<MemberField> fields) {
+        Expression<?>[] paths = fields.stream()
+                .map(MemberField::getPath)
+                .toArray(Expression[]::new);
+
+        JPAQuery<Tuple> query = jpaQueryFactory
+                .select(paths)
+                .from(member);
+
+        // 팀명 조건이 있으면 내부 조인, 팀 필드만 있으면 팀이 없는 회원도 나오도록 외부 조인
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else if (fields.stream().anyMatch(MemberField::isTeamJoin)) {
+            query.leftJoin(member.team, team);
+        }
+
+        return query.where(
+                userNameEq(condition.getUserName()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                userNameContains(condition.getUserNameContains()),
+                userNameStartsWith(condition.getUserNameStartsWith())
+        );
+    }
 
-        return countQuery;
+    // 요청한 필드 순서대로 담는다.
+    private static List<Map<String, Object>> toMaps(List<Tuple> rows, List<MemberField> fields) {
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (MemberField field : fields) {
+                map.put(field.getFieldName(), row.get(field.getPath()));
+            }
+            result.add(map);
+        }
+        return result;
     }
 
-    private List<MemberTeamDto> getMemberTeamDtos(MemberSearchCondition condition, Pageable pageable) {
+    /**
+     * 커서(키셋) 페이징
+     * offset 으로 앞 페이지를 버리는 대신 마지막 행의 (age, member_id) 이후만 조회하므로
+     * 몇 번째 페이지든 비용이 같다.
+     * 다음 페이지 여부는 size + 1 건을 조회해서 판단한다.
+     */
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, int size) {
         List<MemberTeamDto> content = jpaQueryFactory
                 .select(new QMemberTeamDto(
                         member.id,
@@ -126,18 +315,99 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
+                        afterCursor(cursor),
                         userNameEq(condition.getUserName()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        userNameContains(condition.getUserNameContains()),
+                        userNameStartsWith(condition.getUserNameStartsWith())
                 )
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        String nextCursor = hasNext ? MemberCursor.of(content.get(size - 1)).encode() : null;
+
+        return new MemberCursorPage(content, nextCursor, hasNext);
+    }
+
+    /**
+     * 웹 요청 파라미터로 만든 Predicate(MemberRepository.customize 에서 허용한 조건만)로 DTO 페이징
+     * 정렬은 인덱스가 있는 속성(SORTABLE)만 허용하고, 페이지 사이 순서가 흔들리지 않도록 마지막에 id 로 정렬한다.
+     * 팀명 조건은 team 별칭으로 바인딩되므로 있으면 팀을 내부 조인 한 번으로, 없으면 데이터 조회만 외부 조인한다.
+     */
+    @Override
+    public Page<MemberTeamDto> searchByPredicate(Predicate predicate, Pageable pageable) {
+        boolean teamCondition = usesTeam(predicate);
+
+        JPAQuery<MemberTeamDto> contentQuery = jpaQueryFactory
+                .select(new QMemberTeamDto(member.id, member.userName, member.age, team.id, team.name))
+                .from(member);
+        if (teamCondition) {
+            contentQuery.join(member.team, team);
+        } else {
+            contentQuery.leftJoin(member.team, team);
+        }
+        List<MemberTeamDto> content = contentQuery
+                .where(predicate)
+                .orderBy(orderBy(pageable.getSort()))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        return content;
+        JPAQuery<Long> countQuery = jpaQueryFactory
+                .select(member.count())
+                .from(member);
+        if (teamCondition) {
+            countQuery.join(member.team, team);
+        }
+        countQuery.where(predicate);
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    // team 별칭 경로를 쓰는 조건이 있는지 (서브쿼리 안은 제외)
+    private static boolean usesTeam(Expression<?> expression) {
+        if (expression instanceof BooleanBuilder) {
+            return usesTeam(((BooleanBuilder) expression).getValue());
+        }
+        if (expression instanceof Path) {
+            return team.equals(((Path<?>) expression).getRoot());
+        }
+        if (expression instanceof Operation) {
+            return ((Operation<?>) expression).getArgs().stream().anyMatch(MemberRepositoryImpl::usesTeam);
+        }
+        return false;
     }
 
+    private static OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = SORTABLE.get(order.getProperty());
+            if (path == null) {
+                throw new InvalidSearchException("정렬할 수 없는 속성입니다: " + order.getProperty()
+                        + " (가능 : " + SORTABLE.keySet() + ")");
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier[0]);
+    }
+
+    // where (age, member_id) > (?, ?) - JPQL 은 행 값 비교를 지원하지 않아서 풀어서 작성
+    private BooleanExpression afterCursor(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        MemberCursor last = MemberCursor.decode(cursor);
+        return member.age.gt(last.getAge())
+                .or(member.age.eq(last.getAge()).and(member.id.gt(last.getMemberId())));
+    }
 
     private BooleanExpression userNameEq(String userName) {
         return StringUtils.hasText(userName) ? member.userName.eq(userName) : null;
@@ -0,0 +1,73 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.event.EntityChangeEvent;
+
+import java.util.Set;
+
+/**
+ * 회원 검색 결과 캐시 무효화
+ * member, team 테이블에 쓰기가 일어나면 즉시 비우고, 커밋 후 엔티티 변경 이벤트를 받으면 한 번 더 비운다.
+ * (커밋 전에 다른 요청이 이전 데이터를 다시 캐시했을 수 있으므로)
+ */
+@Component
+public class MemberSearchCacheEvictor {
+
+    public static final String MEMBER_SEARCH = "memberSearch";
+    public static final String MEMBER_SEARCH_PAGE = "memberSearchPage";
+
+    private static final Set<String> TABLES = Set.of("member", "team");
+
+    private final CacheManager cacheManager;
+    private final Counter invalidations;
+
+    public MemberSearchCacheEvictor(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.invalidations = Counter.builder("member.search.cache.invalidations")
+                .description("회원, 팀 쓰기로 인한 검색 결과 캐시 무효화 횟수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서는 커밋 전 데이터가 캐시되지 않도록 캐시를 사용하지 않는다.
+     */
+    public static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    public void onWrite(String table) {
+        if (!TABLES.contains(table)) {
+            return;
+        }
+        evictAll();
+    }
+
+    @EventListener
+    public void onChange(EntityChangeEvent event) {
+        if (event.isChanged(Member.class) || event.isChanged(Team.class)) {
+            evictAll();
+        }
+    }
+
+    public void evictAll() {
+        invalidations.increment();
+        clear(MEMBER_SEARCH);
+        clear(MEMBER_SEARCH_PAGE);
+    }
+
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
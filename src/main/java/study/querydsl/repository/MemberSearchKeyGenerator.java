@@ -0,0 +1,44 @@
+package study.querydsl.repository;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 검색 결과 캐시 키
+ * 빈 문자열 조건은 조건 없음(null)과 같은 쿼리이므로 같은 키로 만든다.
+ */
+@Component("memberSearchKeyGenerator")
+public class MemberSearchKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        List<Object> key = new ArrayList<>();
+        for (Object param : params) {
+            if (param instanceof MemberSearchCondition) {
+                MemberSearchCondition condition = (MemberSearchCondition) param;
+                key.add(StringUtils.hasText(condition.getUserName()) ? condition.getUserName() : null);
+                key.add(StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+                key.add(condition.getAgeGoe());
+                key.add(condition.getAgeLoe());
+                key.add(StringUtils.hasText(condition.getUserNameContains()) ? condition.getUserNameContains() : null);
+                key.add(StringUtils.hasText(condition.getUserNameStartsWith()) ? condition.getUserNameStartsWith() : null);
+            } else if (param instanceof Pageable) {
+                Pageable pageable = (Pageable) param;
+                key.add(pageable.getOffset());
+                key.add(pageable.getPageSize());
+                key.add(pageable.getSort());
+            } else {
+                key.add(param);
+            }
+        }
+        return new SimpleKey(key.toArray());
+    }
+}
@@ -0,0 +1,224 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static study.querydsl.dto.MemberSearchCondition.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 쿼리 모양(shape) 캐시
+ * 검색 조건 4개의 조합은 16 가지 뿐이므로 조합별로 JPQL 을 한 번만 만들어 두고
+ * 요청마다 파라미터 값만 바인딩한다. (Querydsl 표현식 생성, JPQL 직렬화 생략)
+ * 회원명 부분 검색(userNameContains, userNameStartsWith)이 있으면 캐시하지 않는다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    private static final Param<String> USER_NAME_PARAM = new Param<>(String.class, "userName");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private final EntityManager entityManager;
+
+    private final AtomicReferenceArray<CachedQuery> contentQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<CachedQuery> countQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder[] shapeUsage = new LongAdder[SHAPE_COUNT];
+
+    public MemberSearchQueryCache(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        for (int i = 0; i < SHAPE_COUNT; i++) {
+            shapeUsage[i] = new LongAdder();
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(condition, null, null);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition, Long offset, Integer limit) {
+        int shape = condition.shape();
+        shapeUsage[shape].increment();
+
+        if (condition.hasUserNameSearch()) {
+            JPAQuery<MemberTeamDto> query = userNameSearchQuery(condition, false)
+                    .select(new QMemberTeamDto(member.id, member.userName, member.age, team.id, team.name));
+            if (offset != null) {
+                query.offset(offset);
+            }
+            if (limit != null) {
+                query.limit(limit);
+            }
+            return query.fetch();
+        }
+
+        Query query = lookup(contentQueries, shape, false).bind(entityManager, condition);
+        if (offset != null) {
+            query.setFirstResult(Math.toIntExact(offset));
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+
+        List<?> rows = query.getResultList();
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            content.add(new MemberTeamDto(
+                    (Long) columns[0],
+                    (String) columns[1],
+                    (Integer) columns[2],
+                    (Long) columns[3],
+                    (String) columns[4]));
+        }
+        return content;
+    }
+
+    public long count(MemberSearchCondition condition) {
+        if (condition.hasUserNameSearch()) {
+            return userNameSearchQuery(condition, true)
+                    .select(member.count())
+                    .fetchOne();
+        }
+        return (Long) lookup(countQueries, condition.shape(), true)
+                .bind(entityManager, condition)
+                .getSingleResult();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * shape 별 조회 횟수
+     */
+    public long getUsage(int shape) {
+        return shapeUsage[shape].sum();
+    }
+
+    /**
+     * shape 의 데이터 조회 JPQL (적중/미스 횟수에 포함하지 않는다.)
+     */
+    public String getContentJpql(int shape) {
+        CachedQuery cached = contentQueries.get(shape);
+        return cached != null ? cached.jpql : compile(shape, false).jpql;
+    }
+
+    private CachedQuery lookup(AtomicReferenceArray<CachedQuery> queries, int shape, boolean count) {
+        CachedQuery cached = queries.get(shape);
+        if (cached != null) {
+            hitCount.increment();
+            return cached;
+        }
+        missCount.increment();
+        // 동시에 처음 들어오면 두 번 만들 수 있지만 결과가 같으므로 문제없다.
+        cached = compile(shape, count);
+        queries.compareAndSet(shape, null, cached);
+        return cached;
+    }
+
+    private CachedQuery compile(int shape, boolean count) {
+        JPAQuery<?> query = count
+                ? new JPAQuery<>().select(member.count()).from(member)
+                : new JPAQuery<>().select(member.id, member.userName, member.age, team.id, team.name).from(member);
+
+        // 팀명 조건이 있으면 팀이 없는 회원은 어차피 걸러지므로 내부 조인
+        // -> DB 가 팀(name 인덱스)부터 읽고 (team_id, age) 인덱스로 회원을 찾을 수 있다.
+        // 카운트 쿼리는 팀명 조건이 있을 때만 조인한다.
+        if (has(shape, TEAM_NAME)) {
+            query.join(member.team, team);
+        } else if (!count) {
+            query.leftJoin(member.team, team);
+        }
+
+        query.where(
+                has(shape, USER_NAME) ? member.userName.eq(USER_NAME_PARAM) : null,
+                has(shape, TEAM_NAME) ? team.name.eq(TEAM_NAME_PARAM) : null,
+                has(shape, AGE_GOE) ? member.age.goe(AGE_GOE_PARAM) : null,
+                has(shape, AGE_LOE) ? member.age.loe(AGE_LOE_PARAM) : null
+        );
+
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT, entityManager);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new CachedQuery(serializer.toString(), serializer.getConstants());
+    }
+
+    /**
+     * 회원명 부분 검색은 캐시하지 않고 매번 만든다. (포함 검색은 검색어의 gram 수에 따라 JPQL 이 달라진다.)
+     * 조인, 나머지 조건은 compile 과 같다.
+     */
+    private JPAQuery<?> userNameSearchQuery(MemberSearchCondition condition, boolean count) {
+        JPAQuery<?> query = new JPAQuery<>(entityManager).from(member);
+
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else if (!count) {
+            query.leftJoin(member.team, team);
+        }
+
+        return query.where(
+                StringUtils.hasText(condition.getUserName()) ? member.userName.eq(condition.getUserName()) : null,
+                StringUtils.hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+                condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null,
+                MemberNameSearch.userNameContains(condition.getUserNameContains()),
+                MemberNameSearch.userNameStartsWith(condition.getUserNameStartsWith())
+        );
+    }
+
+    private static boolean has(int shape, int flag) {
+        return (shape & flag) != 0;
+    }
+
+    /**
+     * 직렬화된 JPQL 과 파라미터 자리(constants)
+     */
+    private static class CachedQuery {
+        private final String jpql;
+        private final List<Object> constants;
+
+        CachedQuery(String jpql, List<Object> constants) {
+            this.jpql = jpql;
+            this.constants = constants;
+        }
+
+        Query bind(EntityManager entityManager, MemberSearchCondition condition) {
+            Map<ParamExpression<?>, Object> params = new HashMap<>();
+            params.put(USER_NAME_PARAM, condition.getUserName());
+            params.put(TEAM_NAME_PARAM, condition.getTeamName());
+            params.put(AGE_GOE_PARAM, condition.getAgeGoe());
+            params.put(AGE_LOE_PARAM, condition.getAgeLoe());
+
+            Query query = entityManager.createQuery(jpql);
+            JPAUtil.setConstants(query, constants, params);
+            return query;
+        }
+    }
+}
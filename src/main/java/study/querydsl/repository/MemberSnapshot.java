@@ -0,0 +1,257 @@
+package study.querydsl.repository;
+
+import com.querydsl.collections.CollQueryFactory;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.event.EntityChange;
+import study.querydsl.repository.event.EntityChangeEvent;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원, 팀 인메모리 스냅샷 (querydsl.snapshot.enabled)
+ * 시작 시 전체를 읽어 두고 이후에는 커밋된 엔티티 변경 이벤트(EntityChangeEvent)를 반영한다.
+ * 벌크 update, delete 는 바뀐 행을 모르므로 다시 읽을 때까지 DB 로 조회하고 바로 다시 읽는다.
+ * refresh-interval 마다도 전체를 다시 읽고, 마지막 전체 적재가 max-staleness 이내일 때만 search 를 스냅샷에서 처리한다.
+ */
+@Slf4j
+@Component
+public class MemberSnapshot {
+
+    private final JPAQueryFactory jpaQueryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final Duration maxStaleness;
+
+    private volatile MemberSnapshotIndex index;
+    private volatile long loadedAt;
+    // 벌크 변경 횟수와 현재 인덱스가 반영한 횟수, 다르면 다시 읽기가 끝날 때까지 DB 로 조회한다.
+    private final AtomicLong bulkChanges = new AtomicLong();
+    private volatile long loadedBulkChanges;
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    // 전체 다시 읽기는 한 번에 하나씩 (스케줄러, 벌크 변경, 직접 호출이 겹칠 수 있다.)
+    private final Object reloadLock = new Object();
+    // 전체 적재 중에 커밋된 변경, 적재가 끝나면 새 인덱스에 다시 반영한다. (this 로 동기화)
+    private List<Consumer<MemberSnapshotIndex>> pending;
+    private ScheduledExecutorService scheduler;
+
+    public MemberSnapshot(JPAQueryFactory jpaQueryFactory,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${querydsl.snapshot.enabled:false}") boolean enabled,
+                          @Value("${querydsl.snapshot.refresh-interval:1m}") Duration refreshInterval,
+                          @Value("${querydsl.snapshot.max-staleness:5m}") Duration maxStaleness) {
+        this.jpaQueryFactory = jpaQueryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.maxStaleness = maxStaleness;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        reload();
+        long interval = refreshInterval.toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("member-snapshot-"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("회원 스냅샷 다시 읽기 실패", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 스냅샷으로 검색해도 되는지 (켜져 있고, 벌크 변경이 없었고, 마지막 전체 적재가 max-staleness 이내)
+     */
+    public boolean isFresh() {
+        return enabled && index != null && loadedBulkChanges == bulkChanges.get()
+                && System.currentTimeMillis() - loadedAt <= maxStaleness.toMillis();
+    }
+
+    public int size() {
+        MemberSnapshotIndex current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * 전체 다시 읽기 (읽는 동안의 검색은 이전 스냅샷으로 처리)
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            long bulk;
+            synchronized (this) {
+                pending = new ArrayList<>();
+                // 읽기 시작 전까지의 벌크 변경만 반영된다. 읽는 도중에 벌크 변경이 오면 한 번 더 읽어야 최신이 된다.
+                bulk = bulkChanges.get();
+            }
+            MemberSnapshotIndex loaded;
+            try {
+                loaded = readOnlyTransaction.execute(status -> load());
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                // 변경은 행 전체 상태를 덮어쓰므로 이미 읽은 내용에 다시 반영해도 결과가 같다.
+                pending.forEach(change -> change.accept(loaded));
+                pending = null;
+                index = loaded;
+                loadedAt = System.currentTimeMillis();
+                loadedBulkChanges = bulk;
+            }
+            log.info("회원 스냅샷 적재 {}건", loaded.size());
+        }
+    }
+
+    /**
+     * MemberSearchQueryCache.search 와 같은 결과 (id 순)
+     * 인덱스로 후보를 좁힌 뒤 같은 조건을 querydsl-collections 로 평가한다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSnapshotIndex current = index;
+        if (current == null) {
+            throw new IllegalStateException("회원 스냅샷이 적재되지 않았습니다.");
+        }
+
+        List<Member> found = CollQueryFactory.from(member, current.candidates(condition))
+                .where(
+                        StringUtils.hasText(condition.getUserName()) ? member.userName.eq(condition.getUserName()) : null,
+                        // 컬렉션 쿼리는 단일 연관관계 조인이 없으므로 팀명은 member.team 경로로 평가 (팀 없는 회원 제외)
+                        StringUtils.hasText(condition.getTeamName())
+                                ? member.team.isNotNull().and(member.team.name.eq(condition.getTeamName())) : null,
+                        condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                        condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null,
+                        StringUtils.hasText(condition.getUserNameContains())
+                                ? member.userName.containsIgnoreCase(condition.getUserNameContains()) : null,
+                        StringUtils.hasText(condition.getUserNameStartsWith())
+                                ? member.userName.startsWith(condition.getUserNameStartsWith()) : null)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        List<MemberTeamDto> content = new ArrayList<>(found.size());
+        for (Member m : found) {
+            Team t = m.getTeam();
+            content.add(new MemberTeamDto(m.getId(), m.getUserName(), m.getAge(),
+                    t != null ? t.getId() : null, t != null ? t.getName() : null));
+        }
+        return content;
+    }
+
+    @EventListener
+    public void onChange(EntityChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // 팀을 먼저 반영해야 회원 복사본이 새 팀을 본다.
+        List<Consumer<MemberSnapshotIndex>> changes = new ArrayList<>();
+        for (EntityChange change : event.getChanges(Team.class)) {
+            Long teamId = (Long) change.getId();
+            if (change.getType() == EntityChange.Type.DELETE) {
+                changes.add(current -> current.removeTeam(teamId));
+            } else {
+                String name = (String) change.get("name");
+                changes.add(current -> current.putTeam(teamId, name));
+            }
+        }
+        for (EntityChange change : event.getChanges(Member.class)) {
+            Long memberId = (Long) change.getId();
+            if (change.getType() == EntityChange.Type.DELETE) {
+                changes.add(current -> current.removeMember(memberId));
+            } else {
+                String userName = (String) change.get("userName");
+                int age = (Integer) change.get("age");
+                Long teamId = (Long) change.get("team");
+                changes.add(current -> current.putMember(memberId, userName, age, teamId));
+            }
+        }
+        if (!changes.isEmpty()) {
+            apply(changes);
+        }
+
+        if (event.isBulkChanged(Member.class) || event.isBulkChanged(Team.class)) {
+            bulkChanges.incrementAndGet();
+            requestReload();
+        }
+    }
+
+    // 커밋한 스레드를 붙잡지 않도록 스케줄러 스레드에서 읽는다. (요청이 겹치면 한 번만)
+    private void requestReload() {
+        if (scheduler == null || !reloadRequested.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler.execute(() -> {
+            reloadRequested.set(false);
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("회원 스냅샷 다시 읽기 실패", e);
+            }
+        });
+    }
+
+    private synchronized void apply(List<Consumer<MemberSnapshotIndex>> changes) {
+        MemberSnapshotIndex current = index;
+        if (current != null) {
+            changes.forEach(change -> change.accept(current));
+        }
+        if (pending != null) {
+            pending.addAll(changes);
+        }
+    }
+
+    /**
+     * 엔티티 대신 필요한 컬럼만 읽는다. (영속성 컨텍스트에 올리지 않는다.)
+     */
+    private MemberSnapshotIndex load() {
+        MemberSnapshotIndex loaded = new MemberSnapshotIndex();
+        for (Tuple row : jpaQueryFactory.select(team.id, team.name).from(team).fetch()) {
+            loaded.putTeam(row.get(team.id), row.get(team.name));
+        }
+        for (Tuple row : jpaQueryFactory.select(member.id, member.userName, member.age, member.team.id)
+                .from(member)
+                .fetch()) {
+            loaded.putMember(row.get(member.id), row.get(member.userName), row.get(member.age), row.get(member.team.id));
+        }
+        return loaded;
+    }
+}
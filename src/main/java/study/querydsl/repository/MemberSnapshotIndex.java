@@ -0,0 +1,152 @@
+package study.querydsl.repository;
+
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 스냅샷 데이터와 보조 인덱스 (회원명, 팀, 나이)
+ * 회원, 팀은 영속성 컨텍스트와 무관한 복사본이고 한 번 넣은 객체는 고치지 않는다. (변경 시 새 복사본으로 교체)
+ * 쓰기는 MemberSnapshot 에서 한 스레드씩만 하고, 읽기는 잠금 없이 동시에 한다.
+ */
+class MemberSnapshotIndex {
+
+    private final Map<Long, Member> members = new ConcurrentHashMap<>();
+    private final Map<Long, Team> teams = new ConcurrentHashMap<>();
+
+    private final NavigableMap<String, Set<Long>> byUserName = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<Long>> byTeam = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> teamsByName = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, Set<Long>> byAge = new ConcurrentSkipListMap<>();
+
+    int size() {
+        return members.size();
+    }
+
+    void putTeam(Long teamId, String name) {
+        Team old = teams.get(teamId);
+        if (old != null && old.getName() != null) {
+            removeFrom(teamsByName, old.getName(), teamId);
+        }
+        Team copy = new Team(teamId, name, new ArrayList<>());
+        teams.put(teamId, copy);
+        if (name != null) {
+            addTo(teamsByName, name, teamId);
+        }
+        // 팀 소속 회원 복사본이 새 팀 복사본을 보도록 교체
+        for (Long memberId : byTeam.getOrDefault(teamId, Set.of())) {
+            Member member = members.get(memberId);
+            if (member != null) {
+                members.put(memberId, new Member(memberId, member.getUserName(), member.getAge(), copy));
+            }
+        }
+    }
+
+    void removeTeam(Long teamId) {
+        Team old = teams.remove(teamId);
+        if (old != null && old.getName() != null) {
+            removeFrom(teamsByName, old.getName(), teamId);
+        }
+    }
+
+    void putMember(Long memberId, String userName, int age, Long teamId) {
+        removeMember(memberId);
+        Team team = null;
+        if (teamId != null) {
+            // 팀 이벤트가 아직 안 왔으면 이름 없는 팀으로 두고 putTeam 에서 채운다.
+            team = teams.computeIfAbsent(teamId, id -> new Team(id, null, new ArrayList<>()));
+            addTo(byTeam, teamId, memberId);
+        }
+        members.put(memberId, new Member(memberId, userName, age, team));
+        if (userName != null) {
+            addTo(byUserName, userName, memberId);
+        }
+        addTo(byAge, age, memberId);
+    }
+
+    void removeMember(Long memberId) {
+        Member old = members.remove(memberId);
+        if (old == null) {
+            return;
+        }
+        if (old.getUserName() != null) {
+            removeFrom(byUserName, old.getUserName(), memberId);
+        }
+        if (old.getTeam() != null) {
+            removeFrom(byTeam, old.getTeam().getId(), memberId);
+        }
+        removeFrom(byAge, old.getAge(), memberId);
+    }
+
+    /**
+     * 인덱스로 좁힌 후보 회원
+     * 회원명 -> 회원명 접두어 -> 팀명 -> 나이 범위 순으로 먼저 있는 조건 하나만 쓰고
+     * 나머지 조건은 querydsl-collections 로 후보에 다시 거른다.
+     */
+    List<Member> candidates(MemberSearchCondition condition) {
+        if (StringUtils.hasText(condition.getUserName())) {
+            return resolve(byUserName.getOrDefault(condition.getUserName(), Set.of()));
+        }
+        if (StringUtils.hasText(condition.getUserNameStartsWith())) {
+            String prefix = condition.getUserNameStartsWith();
+            return resolve(union(byUserName.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()));
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            List<Set<Long>> teamMembers = new ArrayList<>();
+            for (Long teamId : teamsByName.getOrDefault(condition.getTeamName(), Set.of())) {
+                teamMembers.add(byTeam.getOrDefault(teamId, Set.of()));
+            }
+            return resolve(union(teamMembers));
+        }
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int to = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            if (from > to) {
+                return List.of();
+            }
+            return resolve(union(byAge.subMap(from, true, to, true).values()));
+        }
+        return new ArrayList<>(members.values());
+    }
+
+    private List<Member> resolve(Collection<Long> memberIds) {
+        List<Member> result = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            Member member = members.get(memberId);
+            if (member != null) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> union(Collection<Set<Long>> sets) {
+        Set<Long> result = new HashSet<>();
+        for (Set<Long> set : sets) {
+            result.addAll(set);
+        }
+        return result;
+    }
+
+    private static <K> void addTo(Map<K, Set<Long>> index, K key, Long memberId) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(memberId);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> index, K key, Long memberId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(memberId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
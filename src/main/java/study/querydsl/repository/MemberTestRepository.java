@@ -3,16 +3,21 @@ package study.querydsl.repository;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkDmlResult;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberNameSearch.userNameContains;
+import static study.querydsl.repository.MemberNameSearch.userNameStartsWith;
 
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
@@ -21,17 +26,20 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         super(Member.class);
     }
 
+    @Transactional(readOnly = true)
     public List<Member> basicSelect() {
         return select(member)
                 .from(member)
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> basicSelectFrom() {
         return selectFrom(member)
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable
                 , (contentQuery) -> contentQuery
@@ -42,6 +50,8 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                                 , teamNameEq(condition.getTeamName())
                                 , ageGoe(condition.getAgeGoe())
                                 , ageLoe(condition.getAgeLoe())
+                                , userNameContains(condition.getUserNameContains())
+                                , userNameStartsWith(condition.getUserNameStartsWith())
                         )
                 , (countQuery) -> countQuery
                         .select(member.count())
@@ -50,11 +60,84 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                                 userNameEq(condition.getUserName()),
                                 teamNameEq(condition.getTeamName()),
                                 ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
+                                ageLoe(condition.getAgeLoe()),
+                                userNameContains(condition.getUserNameContains()),
+                                userNameStartsWith(condition.getUserNameStartsWith())
                         )
         );
     }
 
+    /**
+     * 팀명 조건이 있을 수 있으므로 카운트 쿼리도 팀을 조인한다.
+     */
+    @Transactional(readOnly = true)
+    public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
+        return applyPagination(pageable
+                , (contentQuery) -> contentQuery
+                        .selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                userNameEq(condition.getUserName())
+                                , teamNameEq(condition.getTeamName())
+                                , ageGoe(condition.getAgeGoe())
+                                , ageLoe(condition.getAgeLoe())
+                                , userNameContains(condition.getUserNameContains())
+                                , userNameStartsWith(condition.getUserNameStartsWith())
+                        )
+                , (countQuery) -> countQuery
+                        .select(member.count())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                userNameEq(condition.getUserName()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe()),
+                                userNameContains(condition.getUserNameContains()),
+                                userNameStartsWith(condition.getUserNameStartsWith())
+                        )
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Member> applySlicing(MemberSearchCondition condition, Pageable pageable) {
+        return applySlicing(pageable
+                , (contentQuery) -> contentQuery
+                        .selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                userNameEq(condition.getUserName())
+                                , teamNameEq(condition.getTeamName())
+                                , ageGoe(condition.getAgeGoe())
+                                , ageLoe(condition.getAgeLoe())
+                                , userNameContains(condition.getUserNameContains())
+                                , userNameStartsWith(condition.getUserNameStartsWith())
+                        )
+        );
+    }
+
+    /**
+     * ageLt 보다 어린 회원의 이름 일괄 변경
+     */
+    @Transactional
+    public BulkDmlResult bulkUpdateUserName(int ageLt, String userName) {
+        return update(member, (updateClause) -> updateClause
+                .set(member.userName, userName)
+                .where(member.age.lt(ageLt)));
+    }
+
+    @Transactional
+    public BulkDmlResult bulkAddAge(int amount) {
+        return update(member, (updateClause) -> updateClause
+                .set(member.age, member.age.add(amount)));
+    }
+
+    @Transactional
+    public BulkDmlResult bulkDeleteByAgeGt(int ageGt) {
+        return delete(member, (deleteClause) -> deleteClause
+                .where(member.age.gt(ageGt)));
+    }
+
     private BooleanExpression userNameEq(String userName) {
         return StringUtils.hasText(userName) ? member.userName.eq(userName) : null;
     }
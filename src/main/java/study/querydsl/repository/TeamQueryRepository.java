@@ -0,0 +1,175 @@
+package study.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.ResultTransformer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.TeamWithMembersDto;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+public class TeamQueryRepository extends Querydsl4RepositorySupport {
+
+    private final int streamFetchSize;
+
+    public TeamQueryRepository(@Value("${querydsl.stream.fetch-size:500}") int streamFetchSize) {
+        super(Team.class);
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    /**
+     * 팀 + 회원 목록 페이징
+     * 팀 ID 만 먼저 페이징하고, 그 팀들만 회원과 함께 fetch join 으로 조회한다.
+     */
+    @Transactional(readOnly = true)
+    public Page<Team> findTeamsWithMembers(String teamName, Pageable pageable) {
+        return applyPaginationByIds(pageable
+                , (idQuery) -> idQuery
+                        .select(team.id)
+                        .from(team)
+                        .where(teamNameEq(teamName))
+                , (fetchQuery, ids) -> fetchQuery
+                        .selectFrom(team)
+                        .leftJoin(team.members, member).fetchJoin()
+                        .where(team.id.in(ids))
+                , (countQuery) -> countQuery
+                        .select(team.count())
+                        .from(team)
+                        .where(teamNameEq(teamName))
+        );
+    }
+
+    /**
+     * 팀 + 회원 목록 DTO
+     * 팀-회원 조인 결과를 한 번에 조회해서 메모리에서 팀별로 묶는다. (엔티티 생성, N+1 없음)
+     *
+     * @param memberLimit 팀별 최대 회원 수 (회원 id 순), null 이면 전체
+     */
+    @Transactional(readOnly = true)
+    public List<TeamWithMembersDto> findTeamsWithMembersDto(String teamName, Integer memberLimit) {
+        if (memberLimit == null) {
+            return teamWithMembersQuery(teamName)
+                    .transform(teamWithMembers());
+        }
+        List<TeamWithMembersDto> result = new ArrayList<>();
+        streamTeamsWithMembersDto(teamName, memberLimit, result::add);
+        return result;
+    }
+
+    /**
+     * 회원이 많은 팀용 스트리밍
+     * 결과를 List 로 모으지 않고 팀 하나가 완성될 때마다 action 에 넘긴다. (팀 id 순으로 정렬되어 있어야 한다.)
+     *
+     * @return 처리한 팀 수
+     */
+    @Transactional(readOnly = true)
+    public long streamTeamsWithMembersDto(String teamName, Integer memberLimit, Consumer<TeamWithMembersDto> action) {
+        if (memberLimit == null) {
+            long count = 0;
+            try (CloseableIterator<TeamWithMembersDto> iterator = streaming(teamWithMembersQuery(teamName))
+                    .transform(groupBy(team.id).iterate(teamWithMembersDto()))) {
+                while (iterator.hasNext()) {
+                    action.accept(iterator.next());
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        try (CloseableIterator<Tuple> rows = streaming(getQueryFactory()
+                .select(team.id, team.name, member.id, member.userName, member.age)
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(teamNameEq(teamName))
+                .orderBy(team.id.asc(), member.id.asc()))
+                .iterate()) {
+            return foldLimited(rows, memberLimit, action);
+        }
+    }
+
+    // 팀별로 묶을 수 있도록 팀 id, 회원 id 순으로 정렬
+    private JPAQuery<?> teamWithMembersQuery(String teamName) {
+        return getQueryFactory()
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(teamNameEq(teamName))
+                .orderBy(team.id.asc(), member.id.asc());
+    }
+
+    private <T extends JPAQuery<?>> T streaming(T query) {
+        query.setHint(QueryHints.FETCH_SIZE, streamFetchSize)
+                .setHint(QueryHints.READ_ONLY, true);
+        return query;
+    }
+
+    /**
+     * 팀별 상위 memberLimit 명 (회원 id 순)
+     * 행이 팀 id, 회원 id 순이므로 팀이 바뀔 때까지 memberLimit 명만 담고 나머지 행은 건너뛴다.
+     * DB 에서 팀별로 자르려면 윈도 함수(row_number)가 필요한데 JPQL 은 지원하지 않는다.
+     * 그래서 팀의 회원 행은 모두 읽지만 비용은 회원 수에 비례한다.
+     * (같은 팀에서 id 가 더 작은 회원을 세는 상관 서브쿼리는 팀 크기 k 에 대해 O(k²) - TeamBenchmark 참고)
+     */
+    private static long foldLimited(Iterator<Tuple> rows, int memberLimit, Consumer<TeamWithMembersDto> action) {
+        long count = 0;
+        TeamWithMembersDto current = null;
+        while (rows.hasNext()) {
+            Tuple row = rows.next();
+            Long teamId = row.get(team.id);
+            if (current == null || !current.getTeamId().equals(teamId)) {
+                if (current != null) {
+                    action.accept(current);
+                    count++;
+                }
+                current = new TeamWithMembersDto(teamId, row.get(team.name), new ArrayList<>());
+            }
+            // 회원이 없는 팀은 회원 컬럼이 모두 null
+            if (row.get(member.id) != null && current.getMembers().size() < memberLimit) {
+                current.getMembers().add(new MemberDto(row.get(member.userName), row.get(member.age)));
+            }
+        }
+        if (current != null) {
+            action.accept(current);
+            count++;
+        }
+        return count;
+    }
+
+    private static ResultTransformer<List<TeamWithMembersDto>> teamWithMembers() {
+        return groupBy(team.id).list(teamWithMembersDto());
+    }
+
+    // 회원이 없는 팀은 member 가 모두 null 이므로 skipNulls 로 빈 목록이 된다.
+    private static FactoryExpression<TeamWithMembersDto> teamWithMembersDto() {
+        return Projections.constructor(TeamWithMembersDto.class,
+                team.id,
+                team.name,
+                list(new QMemberDto(member.userName, member.age).skipNulls()));
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.repository.event;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 벌크 update, delete 를 실행하면 EntityChangePublisher 에 알리는 JPAQueryFactory
+ * (벌크 연산은 영속성 컨텍스트와 Hibernate 이벤트를 거치지 않으므로)
+ */
+public class ChangeTrackingQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final EntityChangePublisher entityChangePublisher;
+
+    public ChangeTrackingQueryFactory(EntityManager entityManager, EntityChangePublisher entityChangePublisher) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.entityChangePublisher = entityChangePublisher;
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(entityManager, path) {
+            @Override
+            public long execute() {
+                return notifyChanged(path, super.execute());
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(entityManager, path) {
+            @Override
+            public long execute() {
+                return notifyChanged(path, super.execute());
+            }
+        };
+    }
+
+    private long notifyChanged(EntityPath<?> path, long affectedRows) {
+        if (affectedRows > 0) {
+            entityChangePublisher.bulkChanged(path.getType());
+        }
+        return affectedRows;
+    }
+}
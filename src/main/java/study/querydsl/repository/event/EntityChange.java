@@ -0,0 +1,39 @@
+package study.querydsl.repository.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * 엔티티 한 건의 변경
+ * state 는 속성명 -> 값 (연관 엔티티는 식별자, 컬렉션은 제외), 삭제면 삭제 직전 값
+ */
+@Getter
+@ToString
+public class EntityChange {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Class<?> entityType;
+    private final Object id;
+    private final Type type;
+    private final Map<String, Object> state;
+
+    public EntityChange(Class<?> entityType, Object id, Type type, Map<String, Object> state) {
+        this.entityType = entityType;
+        this.id = id;
+        this.type = type;
+        this.state = state;
+    }
+
+    public Object get(String property) {
+        return state.get(property);
+    }
+
+    EntityChange withType(Type type) {
+        return new EntityChange(entityType, id, type, state);
+    }
+}
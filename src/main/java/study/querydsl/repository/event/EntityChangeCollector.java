@@ -0,0 +1,49 @@
+package study.querydsl.repository.event;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static study.querydsl.repository.event.EntityChange.Type.DELETE;
+import static study.querydsl.repository.event.EntityChange.Type.INSERT;
+import static study.querydsl.repository.event.EntityChange.Type.UPDATE;
+
+/**
+ * 트랜잭션 하나의 변경을 엔티티별로 합쳐서 모은다.
+ */
+class EntityChangeCollector {
+
+    private final Map<Class<?>, LinkedHashMap<Object, EntityChange>> changes = new LinkedHashMap<>();
+    private final Set<Class<?>> bulkChangedTypes = new LinkedHashSet<>();
+
+    void add(EntityChange change) {
+        LinkedHashMap<Object, EntityChange> byId =
+                changes.computeIfAbsent(change.getEntityType(), type -> new LinkedHashMap<>());
+        EntityChange previous = byId.get(change.getId());
+        if (previous == null) {
+            byId.put(change.getId(), change);
+        } else if (previous.getType() == INSERT && change.getType() == DELETE) {
+            // 트랜잭션 밖에서는 보인 적이 없다.
+            byId.remove(change.getId());
+        } else if (previous.getType() == INSERT) {
+            byId.put(change.getId(), change.withType(INSERT));
+        } else if (previous.getType() == DELETE && change.getType() == INSERT) {
+            byId.put(change.getId(), change.withType(UPDATE));
+        } else {
+            byId.put(change.getId(), change);
+        }
+    }
+
+    void addBulk(Class<?> entityType) {
+        bulkChangedTypes.add(entityType);
+    }
+
+    boolean isEmpty() {
+        return bulkChangedTypes.isEmpty() && changes.values().stream().allMatch(Map::isEmpty);
+    }
+
+    EntityChangeEvent toEvent() {
+        return EntityChangeEvent.of(changes, bulkChangedTypes);
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.repository.event;
+
+import lombok.ToString;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 트랜잭션 하나에서 커밋된 엔티티 변경 (커밋 후 ApplicationEvent 로 발행)
+ * 같은 엔티티의 여러 변경은 최종 결과 하나로 합쳐져 있다. (insert 후 update -> insert, insert 후 delete -> 없음)
+ * 벌크 update, delete 는 어떤 행이 바뀌었는지 모르므로 엔티티 타입만 알려준다.
+ */
+@ToString
+public class EntityChangeEvent {
+
+    private final Map<Class<?>, List<EntityChange>> changes;
+    private final Set<Class<?>> bulkChangedTypes;
+
+    EntityChangeEvent(Map<Class<?>, List<EntityChange>> changes, Set<Class<?>> bulkChangedTypes) {
+        this.changes = changes;
+        this.bulkChangedTypes = bulkChangedTypes;
+    }
+
+    /**
+     * 타입의 엔티티 단위 변경 (커밋 순서가 아니라 처음 변경된 순서)
+     */
+    public List<EntityChange> getChanges(Class<?> entityType) {
+        return changes.getOrDefault(entityType, List.of());
+    }
+
+    /**
+     * 벌크 update, delete 가 실행된 타입인지 (이 경우 getChanges 만으로는 변경을 다 알 수 없다.)
+     */
+    public boolean isBulkChanged(Class<?> entityType) {
+        return bulkChangedTypes.contains(entityType);
+    }
+
+    public boolean isChanged(Class<?> entityType) {
+        return changes.containsKey(entityType) || bulkChangedTypes.contains(entityType);
+    }
+
+    public Set<Class<?>> getChangedTypes() {
+        Set<Class<?>> types = new HashSet<>(changes.keySet());
+        types.addAll(bulkChangedTypes);
+        return types;
+    }
+
+    static EntityChangeEvent of(Map<Class<?>, LinkedHashMap<Object, EntityChange>> changes, Set<Class<?>> bulkChangedTypes) {
+        Map<Class<?>, List<EntityChange>> copy = new LinkedHashMap<>();
+        changes.forEach((type, byId) -> {
+            if (!byId.isEmpty()) {
+                copy.put(type, List.copyOf(byId.values()));
+            }
+        });
+        return new EntityChangeEvent(copy, Set.copyOf(bulkChangedTypes));
+    }
+}
@@ -0,0 +1,158 @@
+package study.querydsl.repository.event;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 엔티티 변경 알림
+ * Hibernate insert, update, delete 이벤트와 벌크 update, delete(ChangeTrackingQueryFactory)를 트랜잭션 단위로 모아서
+ * 커밋되면 EntityChangeEvent 하나로 발행한다. (롤백되면 버린다.)
+ * 구독은 @EventListener(EntityChangeEvent) 로 한다. 커밋한 스레드에서 바로 호출되므로 오래 걸리는 일은 넘길 것
+ */
+@Component
+public class EntityChangePublisher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PersistenceUnitUtil persistenceUnitUtil;
+
+    public EntityChangePublisher(EntityManagerFactory entityManagerFactory, ApplicationEventPublisher eventPublisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityPersister persister = event.getPersister();
+        record(collector -> collector.add(new EntityChange(persister.getMappedClass(), event.getId(),
+                EntityChange.Type.INSERT, state(persister, event.getState()))));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        record(collector -> collector.add(new EntityChange(persister.getMappedClass(), event.getId(),
+                EntityChange.Type.UPDATE, state(persister, event.getState()))));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityPersister persister = event.getPersister();
+        record(collector -> collector.add(new EntityChange(persister.getMappedClass(), event.getId(),
+                EntityChange.Type.DELETE, state(persister, event.getDeletedState()))));
+    }
+
+    /**
+     * 커밋 후 발행은 직접 트랜잭션 동기화로 하므로 Hibernate 커밋 후 이벤트는 필요 없다.
+     */
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 벌크 update, delete 실행 알림 (영향받은 행이 있을 때)
+     */
+    public void bulkChanged(Class<?> entityType) {
+        record(collector -> collector.addBulk(entityType));
+    }
+
+    private void record(Consumer<EntityChangeCollector> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            EntityChangeCollector collector = new EntityChangeCollector();
+            change.accept(collector);
+            eventPublisher.publishEvent(collector.toEvent());
+            return;
+        }
+        EntityChangeCollector collector = (EntityChangeCollector) TransactionSynchronizationManager.getResource(this);
+        if (collector == null) {
+            collector = new EntityChangeCollector();
+            TransactionSynchronizationManager.bindResource(this, collector);
+            TransactionSynchronizationManager.registerSynchronization(new PublishAfterCommit(collector));
+        }
+        change.accept(collector);
+    }
+
+    private Map<String, Object> state(EntityPersister persister, Object[] values) {
+        if (values == null) {
+            return Map.of();
+        }
+        String[] propertyNames = persister.getPropertyNames();
+        Type[] propertyTypes = persister.getPropertyTypes();
+        // 값이 null 일 수 있으므로 HashMap
+        Map<String, Object> state = new HashMap<>();
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyTypes[i].isCollectionType()) {
+                continue;
+            }
+            Object value = values[i];
+            if (value != null && propertyTypes[i].isEntityType()) {
+                value = persistenceUnitUtil.getIdentifier(value);
+            }
+            state.put(propertyNames[i], value);
+        }
+        return Collections.unmodifiableMap(state);
+    }
+
+    /**
+     * REQUIRES_NEW 로 바깥 트랜잭션이 보류되면 모은 변경도 같이 떼어 둔다.
+     */
+    private class PublishAfterCommit implements TransactionSynchronization {
+
+        private final EntityChangeCollector collector;
+
+        PublishAfterCommit(EntityChangeCollector collector) {
+            this.collector = collector;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EntityChangePublisher.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(EntityChangePublisher.this, collector);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EntityChangePublisher.this);
+            if (status == STATUS_COMMITTED && !collector.isEmpty()) {
+                eventPublisher.publishEvent(collector.toEvent());
+            }
+        }
+    }
+}
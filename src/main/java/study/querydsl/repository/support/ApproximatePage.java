@@ -0,0 +1,31 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 전체 건수가 DB 통계에서 온 추정치인 페이지
+ * 추정치는 삭제 후나 통계가 오래되면 실제보다 클 수도, 작을 수도 있으므로 totalElements, totalPages 는 참고용이다.
+ * 다음 페이지 여부는 추정치가 아니라 pageSize + 1 건을 조회한 결과로 판단한다.
+ */
+public class ApproximatePage<T> extends PageImpl<T> {
+
+    private final boolean hasNext;
+
+    public ApproximatePage(List<T> content, Pageable pageable, long totalEstimate, boolean hasNext) {
+        // 다음 행이 있으면 적어도 현재 페이지 끝 + 1 건은 있다.
+        super(content, pageable, Math.max(totalEstimate, pageable.getOffset() + content.size() + (hasNext ? 1 : 0)));
+        this.hasNext = hasNext;
+    }
+
+    public boolean isTotalEstimated() {
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 벌크 update, delete 결과 (영향받은 행 수, 소요 시간)
+ */
+@Getter
+@ToString
+public class BulkDmlResult {
+    private final long affectedRows;
+    private final long elapsedMillis;
+
+    public BulkDmlResult(long affectedRows, long elapsedMillis) {
+        this.affectedRows = affectedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.entity.BulkJobCheckpoint;
+
+/**
+ * 청크 단위 벌크 작업 진행 상황
+ */
+@Getter
+@ToString
+public class BulkJobProgress {
+    private final String jobName;
+    private final long minId;
+    private final long maxId;
+    private final long lastId;
+    private final long chunks;
+    private final long affectedRows;
+    private final long elapsedMillis;
+
+    public BulkJobProgress(String jobName, long minId, long maxId, long lastId,
+                           long chunks, long affectedRows, long elapsedMillis) {
+        this.jobName = jobName;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.lastId = lastId;
+        this.chunks = chunks;
+        this.affectedRows = affectedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    static BulkJobProgress of(BulkJobCheckpoint checkpoint, long elapsedMillis) {
+        return new BulkJobProgress(checkpoint.getJobName(), checkpoint.getMinId(), checkpoint.getMaxId(),
+                checkpoint.getLastId(), checkpoint.getChunks(), checkpoint.getAffectedRows(), elapsedMillis);
+    }
+
+    static BulkJobProgress empty(String jobName) {
+        return new BulkJobProgress(jobName, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * 처리한 id 범위 비율 (0.0 ~ 1.0)
+     */
+    public double getRatio() {
+        if (maxId < minId) {
+            return 1.0;
+        }
+        return (double) (lastId - minId + 1) / (maxId - minId + 1);
+    }
+}
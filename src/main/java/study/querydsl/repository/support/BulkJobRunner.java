@@ -0,0 +1,151 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.BulkJobCheckpoint;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QBulkJobCheckpoint.bulkJobCheckpoint;
+
+/**
+ * 청크 단위 벌크 update, delete 실행기
+ * 조건에 맞는 행의 id 범위를 chunkSize 크기의 구간으로 나누고, 구간마다 별도의 짧은 트랜잭션에서 실행한다.
+ * 한 문장으로 전체를 수정할 때처럼 락과 undo 로그를 오래 잡고 있지 않으므로 온라인 조회를 막지 않는다.
+ * 진행 위치는 BulkJobCheckpoint 에 청크와 같은 트랜잭션으로 저장되므로 실패 후 같은 jobName 으로 다시 실행하면 이어서 처리한다.
+ * 트랜잭션 밖에서 호출할 것 (REQUIRES_NEW 이므로 바깥 트랜잭션이 있으면 그 커넥션도 계속 잡고 있게 된다.)
+ */
+@Slf4j
+@Component
+public class BulkJobRunner {
+
+    private final EntityManager entityManager;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+    private final long defaultThrottleMillis;
+
+    public BulkJobRunner(EntityManager entityManager,
+                         JPAQueryFactory queryFactory,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${querydsl.bulk.chunk-size:1000}") int defaultChunkSize,
+                         @Value("${querydsl.bulk.throttle-millis:0}") long defaultThrottleMillis) {
+        this.entityManager = entityManager;
+        this.queryFactory = queryFactory; // 청크마다 벌크 변경 이벤트를 알린다.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultThrottleMillis = defaultThrottleMillis;
+    }
+
+    /**
+     * 청크 하나를 처리하는 벌크 연산
+     * chunk 는 where 조건과 id 구간을 합친 조건이다.
+     */
+    @FunctionalInterface
+    public interface ChunkOperation {
+        long execute(JPAQueryFactory queryFactory, Predicate chunk);
+    }
+
+    public BulkJobProgress run(String jobName, EntityPath<?> root, NumberPath<Long> id,
+                               Predicate where, ChunkOperation operation) {
+        return run(jobName, root, id, where, operation, defaultChunkSize, defaultThrottleMillis, progress -> {
+        });
+    }
+
+    /**
+     * @param chunkSize      청크 하나의 id 구간 크기
+     * @param throttleMillis 청크 사이에 쉬는 시간 (다른 트랜잭션에 락, 커넥션을 양보)
+     * @param listener       청크가 커밋될 때마다 진행 상황을 받는다.
+     */
+    public BulkJobProgress run(String jobName, EntityPath<?> root, NumberPath<Long> id,
+                               Predicate where, ChunkOperation operation,
+                               int chunkSize, long throttleMillis, Consumer<BulkJobProgress> listener) {
+        long start = System.currentTimeMillis();
+
+        BulkJobCheckpoint checkpoint = transactionTemplate.execute(status -> start(jobName, root, id, where));
+        if (checkpoint == null) {
+            log.info("bulk job [{}] nothing to do", jobName);
+            return BulkJobProgress.empty(jobName);
+        }
+        if (checkpoint.getChunks() > 0) {
+            log.info("bulk job [{}] resume after id {}", jobName, checkpoint.getLastId());
+        }
+
+        while (!checkpoint.isDone()) {
+            long from = checkpoint.getLastId() + 1;
+            long to = Math.min(from + chunkSize - 1, checkpoint.getMaxId());
+
+            checkpoint = transactionTemplate.execute(status -> {
+                long affectedRows = operation.execute(queryFactory, id.between(from, to).and(where));
+                BulkJobCheckpoint current = entityManager.find(BulkJobCheckpoint.class, jobName);
+                current.advance(to, affectedRows);
+                return current;
+            });
+            // 벌크 연산은 2차 캐시를 거치지 않으므로 청크마다 비운다.
+            entityManager.getEntityManagerFactory().getCache().evict(root.getType());
+
+            BulkJobProgress progress = BulkJobProgress.of(checkpoint, System.currentTimeMillis() - start);
+            log.debug("bulk job [{}] {}/{} rows={} ({}%)", jobName, progress.getLastId(), progress.getMaxId(),
+                    progress.getAffectedRows(), Math.round(progress.getRatio() * 100));
+            listener.accept(progress);
+
+            if (throttleMillis > 0 && !checkpoint.isDone()) {
+                sleep(throttleMillis);
+            }
+        }
+
+        BulkJobProgress result = BulkJobProgress.of(checkpoint, System.currentTimeMillis() - start);
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .delete(bulkJobCheckpoint)
+                .where(bulkJobCheckpoint.jobName.eq(jobName))
+                .execute());
+        log.info("bulk job [{}] done chunks={} rows={} {}ms", jobName, result.getChunks(),
+                result.getAffectedRows(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 이전에 중단된 작업이 있으면 그 체크포인트를, 없으면 조건에 맞는 id 범위로 새로 만든다.
+     * 처리할 행이 없으면 null
+     */
+    private BulkJobCheckpoint start(String jobName, EntityPath<?> root, NumberPath<Long> id, Predicate where) {
+        BulkJobCheckpoint checkpoint = entityManager.find(BulkJobCheckpoint.class, jobName);
+        if (checkpoint != null) {
+            return checkpoint;
+        }
+
+        Tuple range = queryFactory
+                .select(id.min(), id.max())
+                .from(root)
+                .where(where)
+                .fetchOne();
+        if (range == null || range.get(id.min()) == null) {
+            return null;
+        }
+
+        checkpoint = new BulkJobCheckpoint(jobName, range.get(id.min()), range.get(id.max()));
+        entityManager.persist(checkpoint);
+        return checkpoint;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // 체크포인트는 이미 커밋됐으므로 다시 실행하면 이어서 처리된다.
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk job interrupted", e);
+        }
+    }
+}
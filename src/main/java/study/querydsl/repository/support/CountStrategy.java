@@ -0,0 +1,25 @@
+package study.querydsl.repository.support;
+
+/**
+ * 페이징 전체 건수 조회 방식
+ */
+public enum CountStrategy {
+
+    /**
+     * 매번 카운트 쿼리 실행
+     */
+    EXACT,
+
+    /**
+     * 카운트 쿼리(조건) 별로 결과를 일정 시간 캐시
+     */
+    CACHED,
+
+    /**
+     * 조건 없는 조회는 DB 통계의 테이블 행 수 추정치를 사용
+     * 추정치가 기준 이상이면 정확한 값 대신 추정치(ApproximatePage)로 내려주고,
+     * 기준 미만이거나 조건이 있으면 CACHED 와 같다.
+     * 다음 페이지 여부는 pageSize + 1 건 조회로 판단하고, 마지막 페이지면 카운트 없이 정확한 건수를 준다.
+     */
+    ESTIMATED
+}
@@ -0,0 +1,18 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * 엔티티가 로딩될 때마다 QueryCountInspector 의 스레드별 카운터를 올린다.
+ */
+public class EntityLoadCountInterceptor extends EmptyInterceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryCountInspector.countEntityLoad();
+        return false;
+    }
+}
@@ -0,0 +1,304 @@
+package study.querydsl.repository.support;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 회원 나이, 팀 컬럼 저장소 (박싱 없는 기본형 배열)
+ * 행마다 회원 id(long), 나이(int), 팀 코드(int) 16 바이트만 쓴다. 팀 id 는 1 부터의 코드로 바꿔 둔다. (0 은 팀 없음)
+ * 회원 id 순으로 정렬해 두고 수정, 삭제는 이진 탐색으로 행을 찾는다.
+ * 삭제는 표시만 하고 삭제 비율이 COMPACT_RATIO 를 넘으면 당겨서 채운다.
+ * 집계는 배열을 처음부터 끝까지 도는 단순 루프라 JIT 가 벡터화할 수 있다. (삭제 행이 없을 때)
+ */
+public class MemberAgeColumns {
+
+    /** 팀 없는 회원의 팀 코드 */
+    public static final int NO_TEAM = 0;
+
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] memberIds;
+    private int[] ages;
+    private int[] teamCodes;
+    private final BitSet deleted = new BitSet();
+    private int size;
+    private int deletedCount;
+
+    // 팀 수는 적으므로 박싱 맵을 써도 된다.
+    private final Map<Long, Integer> teamCodeById = new HashMap<>();
+    private long[] teamIds = new long[16];
+    private int teamCount = 1;
+
+    public MemberAgeColumns() {
+        this(MIN_CAPACITY);
+    }
+
+    public MemberAgeColumns(int capacity) {
+        int initial = Math.max(capacity, MIN_CAPACITY);
+        this.memberIds = new long[initial];
+        this.ages = new int[initial];
+        this.teamCodes = new int[initial];
+    }
+
+    /**
+     * 행 추가 (이미 있는 회원이면 수정)
+     * 커밋 순서 때문에 id 가 조금 뒤바뀌어 들어와도 정렬 위치에 끼워 넣는다.
+     */
+    public void append(long memberId, int age, Long teamId) {
+        lock.writeLock().lock();
+        try {
+            int teamCode = teamCode(teamId);
+            int row = find(memberId);
+            if (row >= 0) {
+                ages[row] = age;
+                teamCodes[row] = teamCode;
+                if (deleted.get(row)) {
+                    deleted.clear(row);
+                    deletedCount--;
+                }
+                return;
+            }
+            ensureCapacity(size + 1);
+            int insertAt = -(row + 1);
+            if (insertAt < size) {
+                shift(insertAt);
+            }
+            memberIds[insertAt] = memberId;
+            ages[insertAt] = age;
+            teamCodes[insertAt] = teamCode;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return 삭제했으면 true (없거나 이미 삭제된 회원이면 false)
+     */
+    public boolean remove(long memberId) {
+        lock.writeLock().lock();
+        try {
+            int row = find(memberId);
+            if (row < 0 || deleted.get(row)) {
+                return false;
+            }
+            deleted.set(row);
+            deletedCount++;
+            if (deletedCount > size * COMPACT_RATIO) {
+                compact();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 남아 있는 회원 수
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 전체 나이 집계 (count, sum, min, max)
+     */
+    public Aggregate aggregate() {
+        lock.readLock().lock();
+        try {
+            if (deletedCount == 0) {
+                return aggregateDense();
+            }
+            long count = 0;
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int row = deleted.nextClearBit(0); row < size; row = deleted.nextClearBit(row + 1)) {
+                int age = ages[row];
+                count++;
+                sum += age;
+                min = Math.min(min, age);
+                max = Math.max(max, age);
+            }
+            return new Aggregate(count, sum, min, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 팀별 나이 집계 (팀 id -> 집계, 팀 없는 회원과 회원이 없는 팀은 제외)
+     */
+    public Map<Long, Aggregate> aggregateByTeam() {
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[teamCount];
+            long[] sums = new long[teamCount];
+            int[] mins = new int[teamCount];
+            int[] maxs = new int[teamCount];
+            Arrays.fill(mins, Integer.MAX_VALUE);
+            Arrays.fill(maxs, Integer.MIN_VALUE);
+
+            for (int row = 0; row < size; row++) {
+                if (deletedCount != 0 && deleted.get(row)) {
+                    continue;
+                }
+                int code = teamCodes[row];
+                int age = ages[row];
+                counts[code]++;
+                sums[code] += age;
+                mins[code] = Math.min(mins[code], age);
+                maxs[code] = Math.max(maxs[code], age);
+            }
+
+            Map<Long, Aggregate> result = new HashMap<>();
+            for (int code = NO_TEAM + 1; code < teamCount; code++) {
+                if (counts[code] > 0) {
+                    result.put(teamIds[code], new Aggregate(counts[code], sums[code], mins[code], maxs[code]));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 삭제 표시된 행을 당겨서 채운다. (순서 유지)
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            int write = 0;
+            for (int read = 0; read < size; read++) {
+                if (!deleted.get(read)) {
+                    memberIds[write] = memberIds[read];
+                    ages[write] = ages[read];
+                    teamCodes[write] = teamCodes[read];
+                    write++;
+                }
+            }
+            size = write;
+            deleted.clear();
+            deletedCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Aggregate aggregateDense() {
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int[] values = ages;
+        int length = size;
+        for (int row = 0; row < length; row++) {
+            int age = values[row];
+            sum += age;
+            min = Math.min(min, age);
+            max = Math.max(max, age);
+        }
+        return new Aggregate(length, sum, min, max);
+    }
+
+    private int teamCode(Long teamId) {
+        if (teamId == null) {
+            return NO_TEAM;
+        }
+        Integer code = teamCodeById.get(teamId);
+        if (code != null) {
+            return code;
+        }
+        if (teamCount == teamIds.length) {
+            teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+        }
+        teamIds[teamCount] = teamId;
+        teamCodeById.put(teamId, teamCount);
+        return teamCount++;
+    }
+
+    /**
+     * @return 있으면 행 번호, 없으면 -(끼워 넣을 위치 + 1)
+     */
+    private int find(long memberId) {
+        // 대부분 마지막 뒤에 붙는다.
+        if (size == 0 || memberIds[size - 1] < memberId) {
+            return -(size + 1);
+        }
+        return Arrays.binarySearch(memberIds, 0, size, memberId);
+    }
+
+    private void shift(int from) {
+        int length = size - from;
+        System.arraycopy(memberIds, from, memberIds, from + 1, length);
+        System.arraycopy(ages, from, ages, from + 1, length);
+        System.arraycopy(teamCodes, from, teamCodes, from + 1, length);
+        for (int row = deleted.previousSetBit(size - 1); row >= from; row = deleted.previousSetBit(row - 1)) {
+            deleted.clear(row);
+            deleted.set(row + 1);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= memberIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, memberIds.length + (memberIds.length >> 1));
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teamCodes = Arrays.copyOf(teamCodes, capacity);
+    }
+
+    /**
+     * 나이 집계 결과 (회원이 없으면 min, max 는 null)
+     */
+    public static class Aggregate {
+        private final long count;
+        private final long sum;
+        private final int min;
+        private final int max;
+
+        Aggregate(long count, long sum, int min, int max) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public Double getAvg() {
+            return count == 0 ? null : (double) sum / count;
+        }
+
+        public Integer getMin() {
+            return count == 0 ? null : min;
+        }
+
+        public Integer getMax() {
+            return count == 0 ? null : max;
+        }
+
+        public Aggregate merge(Aggregate other) {
+            return new Aggregate(count + other.count, sum + other.sum,
+                    Math.min(min, other.min), Math.max(max, other.max));
+        }
+    }
+}
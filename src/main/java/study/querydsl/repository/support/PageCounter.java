@@ -0,0 +1,144 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CountStrategy 에 따라 페이지 전체 건수를 구한다.
+ * 첫 페이지, 마지막 페이지처럼 카운트가 필요 없으면 생략하는 것은 PageableExecutionUtils 와 같다.
+ */
+@Component
+public class PageCounter {
+
+    // H2 통계의 테이블 행 수 추정치
+    private static final String ROW_COUNT_ESTIMATE_SQL = "select row_count_estimate from information_schema.tables"
+            + " where upper(table_name) = upper(?) and table_schema = current_schema";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final Cache<List<Object>, Long> countCache;
+    private final long estimateThreshold;
+
+    public PageCounter(JdbcTemplate jdbcTemplate,
+                       EntityManagerFactory entityManagerFactory,
+                       @Value("${querydsl.count.cache-ttl:30s}") Duration cacheTtl,
+                       @Value("${querydsl.count.cache-size:1000}") long cacheSize,
+                       @Value("${querydsl.count.estimate-threshold:10000}") long estimateThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.countCache = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheSize)
+                .build();
+        this.estimateThreshold = estimateThreshold;
+    }
+
+    /**
+     * ESTIMATED 는 다음 페이지 여부를 알기 위해 pageSize + 1 건을 조회해서 넘길 것 (fetchSize)
+     */
+    public static long fetchSize(Pageable pageable, CountStrategy strategy) {
+        return strategy == CountStrategy.ESTIMATED ? pageable.getPageSize() + 1L : pageable.getPageSize();
+    }
+
+    public <T> Page<T> getPage(List<T> content, Pageable pageable, JPAQuery<Long> countQuery, CountStrategy strategy) {
+        if (strategy == CountStrategy.ESTIMATED && pageable.isPaged()) {
+            boolean hasNext = content.size() > pageable.getPageSize();
+            if (!hasNext && (!content.isEmpty() || pageable.getOffset() == 0)) {
+                // 마지막 페이지면 전체 건수를 정확히 알 수 있다.
+                return new PageImpl<>(content, pageable, pageable.getOffset() + content.size());
+            }
+            if (hasNext) {
+                content = content.subList(0, pageable.getPageSize());
+                long estimate = estimate(countQuery);
+                if (estimate >= estimateThreshold) {
+                    return new ApproximatePage<>(content, pageable, estimate, true);
+                }
+            }
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(countQuery, strategy));
+    }
+
+    private long count(JPAQuery<Long> countQuery, CountStrategy strategy) {
+        if (strategy == CountStrategy.EXACT || !cacheable()) {
+            return countQuery.fetchOne();
+        }
+        return countCache.get(cacheKey(countQuery), key -> countQuery.fetchOne());
+    }
+
+    /**
+     * 쓰기 트랜잭션 안의 카운트는 커밋 전 데이터를 포함할 수 있으므로 캐시하지 않는다.
+     */
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    // 같은 JPQL 과 같은 파라미터 값이면 같은 카운트
+    private static List<Object> cacheKey(JPAQuery<Long> countQuery) {
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(countQuery.getMetadata(), false, null);
+
+        List<Object> key = new ArrayList<>();
+        key.add(serializer.toString());
+        key.addAll(serializer.getConstants());
+        return key;
+    }
+
+    /**
+     * 조건과 내부 조인이 없어서 테이블 전체 건수와 같은 카운트 쿼리면 통계의 추정치, 아니면 -1
+     */
+    private long estimate(JPAQuery<Long> countQuery) {
+        QueryMetadata metadata = countQuery.getMetadata();
+        if (metadata.getWhere() != null || metadata.getHaving() != null || !metadata.getGroupBy().isEmpty()) {
+            return -1;
+        }
+        List<JoinExpression> joins = metadata.getJoins();
+        for (JoinExpression join : joins.subList(1, joins.size())) {
+            if (join.getType() != JoinType.LEFTJOIN) {
+                return -1;
+            }
+        }
+
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(joins.get(0).getTarget().getType());
+        if (!(persister instanceof AbstractEntityPersister)) {
+            return -1;
+        }
+        return rowCountEstimate(((AbstractEntityPersister) persister).getTableName());
+    }
+
+    /**
+     * H2 통계의 테이블 행 수 추정치, 없으면 -1
+     */
+    long rowCountEstimate(String tableName) {
+        try {
+            Long estimate = jdbcTemplate.queryForObject(ROW_COUNT_ESTIMATE_SQL, Long.class, tableName);
+            return estimate != null ? estimate : -1;
+        } catch (DataAccessException e) {
+            // H2 가 아니거나 통계가 없으면 추정하지 않는다.
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 조회 쿼리 병렬 실행기
+ * 쿼리마다 별도의 읽기 전용 EntityManager(= 별도 커넥션)를 열어서 실행한다.
+ * 현재 트랜잭션의 영속성 컨텍스트를 공유하지 않으므로 flush 되지 않은 변경은 보이지 않는다.
+ * 읽기 전용 조회에만 사용할 것
+ */
+@Component
+public class ParallelQueryExecutor {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelQueryExecutor(EntityManagerFactory entityManagerFactory,
+                                 @Value("${querydsl.parallel-query.enabled:false}") boolean enabled,
+                                 @Value("${querydsl.parallel-query.pool-size:8}") int poolSize,
+                                 @Value("${querydsl.parallel-query.queue-capacity:100}") int queueCapacity) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+        // 큐가 가득 차면 호출한 스레드에서 실행한다. (작업을 버리지 않는 대신 호출 스레드가 느려진다.)
+        // 이때 호출 스레드도 커넥션을 하나 더 쓰므로 커넥션 사용량은 최대 poolSize + 호출 스레드 수 이다.
+        // 커넥션 풀 크기는 이 값에 여유를 두고 잡을 것
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("parallel-query-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> CompletableFuture<T> submit(Function<JPAQueryFactory, T> query) {
+        return CompletableFuture.supplyAsync(() -> execute(query), executor);
+    }
+
+    /**
+     * CompletionException 을 벗겨서 원래 예외를 던진다.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <T> T execute(Function<JPAQueryFactory, T> query) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+
+            entityManager.getTransaction().begin();
+            session.doWork(connection -> connection.setReadOnly(true));
+            try {
+                return query.apply(new JPAQueryFactory(entityManager));
+            } finally {
+                // 조회만 했으므로 커밋할 것이 없다.
+                entityManager.getTransaction().rollback();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 실행된 SQL 수(종류별)와 로딩된 엔티티 수
+ */
+@Getter
+@ToString
+public class QueryCount {
+
+    public static final QueryCount EMPTY = new QueryCount(0, 0, 0, 0, 0, 0);
+
+    private final long select;
+    private final long insert;
+    private final long update;
+    private final long delete;
+    private final long other;
+    private final long entityLoad;
+
+    public QueryCount(long select, long insert, long update, long delete, long other, long entityLoad) {
+        this.select = select;
+        this.insert = insert;
+        this.update = update;
+        this.delete = delete;
+        this.other = other;
+        this.entityLoad = entityLoad;
+    }
+
+    public long getStatementCount() {
+        return select + insert + update + delete + other;
+    }
+
+    public QueryCount minus(QueryCount before) {
+        return new QueryCount(
+                select - before.select,
+                insert - before.insert,
+                update - before.update,
+                delete - before.delete,
+                other - before.other,
+                entityLoad - before.entityLoad);
+    }
+}
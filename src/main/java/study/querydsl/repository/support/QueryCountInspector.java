@@ -0,0 +1,92 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+
+/**
+ * Hibernate 가 준비하는 SQL 을 스레드별로 종류에 따라 센다.
+ * 카운터는 계속 누적되므로 구간의 개수는 전후 snapshot 의 차이로 구한다.
+ * (JDBC 배치는 한 번으로 센다)
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final int SELECT = 0;
+    private static final int INSERT = 1;
+    private static final int UPDATE = 2;
+    private static final int DELETE = 3;
+    private static final int OTHER = 4;
+    private static final int ENTITY_LOAD = 5;
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[6]);
+
+    // capture 중일 때만 SQL 문장을 담는다. (평소에는 개수만 센다.)
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        COUNTS.get()[typeOf(sql)]++;
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(stripComment(sql));
+        }
+        return sql;
+    }
+
+    /**
+     * 이 스레드에서 준비되는 SQL(주석 제외)을 sqls 에 담는다. null 이면 그만 담는다.
+     * 이전에 담던 목록을 반환하므로 끝나면 그 목록으로 되돌릴 것
+     */
+    public static List<String> capture(List<String> sqls) {
+        List<String> previous = CAPTURED.get();
+        if (sqls == null) {
+            CAPTURED.remove();
+        } else {
+            CAPTURED.set(sqls);
+        }
+        return previous;
+    }
+
+    public static void countEntityLoad() {
+        COUNTS.get()[ENTITY_LOAD]++;
+    }
+
+    public static QueryCount snapshot() {
+        long[] counts = COUNTS.get();
+        return new QueryCount(counts[SELECT], counts[INSERT], counts[UPDATE], counts[DELETE], counts[OTHER], counts[ENTITY_LOAD]);
+    }
+
+    private static int typeOf(String sql) {
+        String statement = stripComment(sql);
+        if (startsWith(statement, "select") || startsWith(statement, "with")) {
+            return SELECT;
+        }
+        if (startsWith(statement, "insert")) {
+            return INSERT;
+        }
+        if (startsWith(statement, "update")) {
+            return UPDATE;
+        }
+        if (startsWith(statement, "delete")) {
+            return DELETE;
+        }
+        return OTHER;
+    }
+
+    // use_sql_comments 사용 시 앞에 붙는 /* ... */ 주석 제거
+    static String stripComment(String sql) {
+        String statement = sql.trim();
+        while (statement.startsWith("/*")) {
+            int end = statement.indexOf("*/");
+            if (end < 0) {
+                break;
+            }
+            statement = statement.substring(end + 2).trim();
+        }
+        return statement;
+    }
+
+    private static boolean startsWith(String statement, String keyword) {
+        return statement.regionMatches(true, 0, keyword, 0, keyword.length());
+    }
+}
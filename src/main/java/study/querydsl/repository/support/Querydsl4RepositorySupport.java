@@ -4,11 +4,19 @@ import com.mysema.commons.lang.Assert;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPADeleteClause;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -18,8 +26,19 @@ import org.springframework.stereotype.Repository;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -34,6 +53,7 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private PageCounter pageCounter;
 
     // 도메인 class 주입
     public Querydsl4RepositorySupport(Class<?> domainClass) {
@@ -54,11 +74,21 @@ public abstract class Querydsl4RepositorySupport {
 
         EntityPath path = resolver.createPath(entityInformation.getJavaType());
 
-        // entityManager 주입 받고 querydsl, queryFactory 생성
+        // entityManager 주입 받고 querydsl 생성
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager,
                 new PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    // 벌크 update, delete 를 엔티티 변경 이벤트로 알리는 JPAQueryFactory Bean 주입
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Autowired
+    public void setPageCounter(PageCounter pageCounter) {
+        this.pageCounter = pageCounter;
     }
 
     @PostConstruct
@@ -66,6 +96,7 @@ public abstract class Querydsl4RepositorySupport {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(pageCounter, "PageCounter must not be null!");
     }
 
     // Getter
@@ -98,4 +129,133 @@ public abstract class Querydsl4RepositorySupport {
 
         return PageableExecutionUtils.getPage(content, pageable, () -> countResult.fetchOne());
     }
+
+    /**
+     * 전체 건수 조회 방식 지정 (CountStrategy)
+     */
+    protected <T> Page<T> applyPagination(
+            Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory, JPAQuery> countQuery,
+            CountStrategy countStrategy)
+    {
+        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery)
+                .limit(PageCounter.fetchSize(pageable, countStrategy))
+                .fetch();
+        JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
+
+        return pageCounter.getPage(content, pageable, countResult, countStrategy);
+    }
+
+    /**
+     * 컬렉션 fetch join 페이징 (ID 조회 후 fetch)
+     * 컬렉션을 fetch join 한 쿼리에 offset/limit 을 걸면 Hibernate 가 전체를 읽고 메모리에서 자른다. (HHH000104)
+     * 1. idQuery 로 루트 엔티티 ID 만 DB 에서 페이징 (정렬 적용, 컬렉션 조인 없이 작성할 것)
+     * 2. fetchQuery 로 해당 ID 들만 컬렉션과 함께 한 번에 조회하고 1 의 순서대로 정렬
+     * 카운트는 applyPagination 과 같은 countQuery 를 사용한다.
+     */
+    protected <T, ID> Page<T> applyPaginationByIds(
+            Pageable pageable, Function<JPAQueryFactory, JPAQuery<ID>> idQuery,
+            BiFunction<JPAQueryFactory, List<ID>, JPAQuery<T>> fetchQuery, Function<JPAQueryFactory, JPAQuery> countQuery)
+    {
+        List<ID> ids = getQuerydsl().applyPagination(pageable, idQuery.apply(getQueryFactory())).fetch();
+        JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
+
+        if (ids.isEmpty()) {
+            return PageableExecutionUtils.getPage(Collections.emptyList(), pageable, () -> countResult.fetchOne());
+        }
+
+        // fetch join 결과는 루트가 중복될 수 있으므로 ID 별로 하나만 남긴다.
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<Object, T> fetched = new HashMap<>();
+        for (T entity : fetchQuery.apply(getQueryFactory(), ids).fetch()) {
+            fetched.putIfAbsent(persistenceUnitUtil.getIdentifier(entity), entity);
+        }
+
+        List<T> content = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T entity = fetched.get(id);
+            if (entity != null) {
+                content.add(entity);
+            }
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> countResult.fetchOne());
+    }
+
+    /**
+     * 카운트 쿼리 없는 페이징
+     * pageSize + 1 건을 조회해서 다음 페이지가 있는지만 판단한다. (무한 스크롤처럼 전체 건수가 필요 없는 경우)
+     */
+    protected <T> Slice<T> applySlicing(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = getQuerydsl().applySorting(pageable.getSort(), jpaContentQuery)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        return toSlice(content, pageable);
+    }
+
+    /**
+     * pageSize + 1 건을 조회한 결과로 Slice 생성
+     */
+    public static <T> Slice<T> toSlice(List<T> content, Pageable pageable) {
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * 벌크 update
+     * 실행 전에 flush 하고, 실행 후 영속성 컨텍스트와 2차 캐시에서 대상 엔티티와 대상 엔티티를 담은 컬렉션의 소유자를 제거한다.
+     * (벌크 연산은 영속성 컨텍스트를 무시하고 DB 에 바로 실행되므로)
+     * 트랜잭션 안에서 호출할 것
+     */
+    protected BulkDmlResult update(EntityPath<?> path, Function<JPAUpdateClause, JPAUpdateClause> updateClause) {
+        return executeBulk(path, () -> updateClause.apply(getQueryFactory().update(path)).execute());
+    }
+
+    /**
+     * 벌크 delete, update 와 같음
+     */
+    protected BulkDmlResult delete(EntityPath<?> path, Function<JPADeleteClause, JPADeleteClause> deleteClause) {
+        return executeBulk(path, () -> deleteClause.apply(getQueryFactory().delete(path)).execute());
+    }
+
+    private BulkDmlResult executeBulk(EntityPath<?> path, LongSupplier bulk) {
+        long start = System.nanoTime();
+
+        entityManager.flush();
+        long affectedRows = bulk.getAsLong();
+        evict(path.getType());
+
+        return new BulkDmlResult(affectedRows, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // 다른 타입의 엔티티는 그대로 두고 대상 타입과, 대상 타입을 담은 초기화된 컬렉션의 소유자(Team.members 의 Team 등)만 준영속 상태로 만든다.
+    // 소유자를 남겨 두면 컬렉션이 이전 값을 가진 인스턴스를 계속 돌려준다. 다시 조회하면 컬렉션도 새로 읽는다.
+    private void evict(Class<?> entityType) {
+        PersistenceContext persistenceContext = entityManager.unwrap(SessionImplementor.class).getPersistenceContext();
+
+        Set<Object> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> roles = new HashSet<>();
+        persistenceContext.forEachCollectionEntry((collection, entry) -> {
+            CollectionPersister persister = entry.getLoadedPersister();
+            if (persister != null && collection.wasInitialized()
+                    && entityType.isAssignableFrom(persister.getElementType().getReturnedClass())) {
+                owners.add(collection.getOwner());
+                roles.add(persister.getRole());
+            }
+        }, false);
+
+        for (Object entity : new ArrayList<>(persistenceContext.getEntitiesByKey().values())) {
+            if (entityType.isInstance(entity) || owners.contains(entity)) {
+                entityManager.detach(entity);
+            }
+        }
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        cache.evict(entityType);
+        roles.forEach(cache::evictCollectionData);
+    }
 }
@@ -0,0 +1,131 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리포지토리 메서드별 쿼리 비용 측정
+ * 메서드, 검색 조건 모양(shape) 별로 응답 시간 히스토그램, SQL 수, 조회 행 수, 로딩 엔티티 수를 기록한다.
+ * SQL 수와 엔티티 수는 호출한 스레드 기준이므로 ParallelQueryExecutor 로 실행한 쿼리는 포함되지 않는다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private static final String BASE_PACKAGE = "study.querydsl";
+    private static final String NO_SHAPE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    // @Repository 클래스와 Spring Data 리포지토리 (MemberRepositoryImpl 등 커스텀 구현은 리포지토리 프록시에서 측정)
+    @Around("execution(public * *(..))"
+            + " && (@within(org.springframework.stereotype.Repository)"
+            + " || this(org.springframework.data.repository.Repository))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        QueryCount before = QueryCountInspector.snapshot();
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            QueryCount count = QueryCountInspector.snapshot().minus(before);
+            Tags tags = Tags.of(
+                    "method", methodName(joinPoint),
+                    "shape", shape(joinPoint.getArgs()));
+
+            Timer.builder("repository.query")
+                    .description("리포지토리 메서드 응답 시간")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            summary("repository.query.statements", "실행한 SQL 수", tags)
+                    .record(count.getStatementCount());
+            summary("repository.query.entities", "로딩한 엔티티 수", tags)
+                    .record(count.getEntityLoad());
+
+            long rows = rows(result);
+            if (rows >= 0) {
+                summary("repository.query.rows", "조회한 행 수", tags).record(rows);
+            }
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, Tags tags) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    // Spring Data 리포지토리는 JDK 프록시이므로 애플리케이션의 리포지토리 인터페이스 이름을 사용
+    private String methodName(ProceedingJoinPoint joinPoint) {
+        Class<?> type = joinPoint.getSignature().getDeclaringType();
+        Object target = joinPoint.getTarget();
+        if (target != null && Proxy.isProxyClass(target.getClass())) {
+            for (Class<?> candidate : target.getClass().getInterfaces()) {
+                if (candidate.getName().startsWith(BASE_PACKAGE)) {
+                    type = candidate;
+                    break;
+                }
+            }
+        }
+        return type.getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+
+    private String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                MemberSearchCondition condition = (MemberSearchCondition) arg;
+                // 회원명 부분 검색은 shape 캐시를 쓰지 않으므로 따로 구분
+                return condition.shape() + (condition.hasUserNameSearch() ? "+name" : "");
+            }
+        }
+        return NO_SHAPE;
+    }
+
+    /**
+     * 결과 행 수, 알 수 없는 타입이면 -1
+     */
+    private long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberCursorPage) {
+            return ((MemberCursorPage) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
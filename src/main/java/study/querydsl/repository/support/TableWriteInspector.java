@@ -0,0 +1,40 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * insert, update, delete SQL 의 대상 테이블을 listener 에 알린다.
+ * 엔티티 저장뿐 아니라 영속성 컨텍스트를 거치지 않는 벌크 update(), delete() 도 잡힌다.
+ * SQL 실행 직전(커밋 전)에 호출된다.
+ */
+public class TableWriteInspector implements StatementInspector {
+
+    private static final Pattern WRITE = Pattern.compile(
+            "^(?:insert\\s+into|update|delete\\s+from|delete)\\s+([\\w.]+)", Pattern.CASE_INSENSITIVE);
+
+    private final Consumer<String> listener;
+
+    public TableWriteInspector(Consumer<String> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = WRITE.matcher(QueryCountInspector.stripComment(sql));
+        if (matcher.find()) {
+            listener.accept(tableName(matcher.group(1)));
+        }
+        return sql;
+    }
+
+    // 스키마 제거, 소문자
+    private static String tableName(String name) {
+        int dot = name.lastIndexOf('.');
+        return name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
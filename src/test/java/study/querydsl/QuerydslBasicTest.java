@@ -17,6 +17,7 @@ import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCounter;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -358,14 +359,20 @@ public class QuerydslBasicTest {
         em.clear();
 
         //when
-        Member findMember = jpaQueryFactory
-                .selectFrom(member)
-                .where(member.userName.eq("member1"))
-                .fetchOne();
+        Member findMember = SqlCounter.count(() -> jpaQueryFactory
+                        .selectFrom(member)
+                        .where(member.userName.eq("member1"))
+                        .fetchOne())
+                .assertSelectCount(1)
+                .getResult();
 
         //then
         boolean loaded = entityManagerFactory.getPersistenceUnitUtil().isLoaded(findMember.getTeam());
         assertThat(loaded).as("페치 조인 미적용").isFalse();
+
+        // 지연 로딩 -> 팀 조회 쿼리가 추가로 나간다.
+        SqlCounter.count(() -> findMember.getTeam().getName())
+                .assertSelectCount(1);
     }
 
     @Test
@@ -375,15 +382,21 @@ public class QuerydslBasicTest {
         em.clear();
 
         //when
-        Member findMember = jpaQueryFactory
-                .selectFrom(member)
-                .join(member.team, team).fetchJoin()
-                .where(member.userName.eq("member1"))
-                .fetchOne();
+        Member findMember = SqlCounter.count(() -> jpaQueryFactory
+                        .selectFrom(member)
+                        .join(member.team, team).fetchJoin()
+                        .where(member.userName.eq("member1"))
+                        .fetchOne())
+                .assertSelectCount(1)
+                .getResult();
 
         //then
         boolean loaded = entityManagerFactory.getPersistenceUnitUtil().isLoaded(findMember.getTeam());
         assertThat(loaded).as("페치 조인 적용").isTrue();
+
+        // 이미 로딩된 팀 -> 추가 쿼리 없음
+        SqlCounter.count(() -> findMember.getTeam().getName())
+                .assertStatementCount(0);
     }
 
     /**
@@ -0,0 +1,211 @@
+package study.querydsl.config.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인메모리 H2 두 개를 primary, 복제본으로 사용
+ * 각 DB 의 node 테이블에 자기 이름을 넣어두고 어느 쪽에서 읽었는지 확인한다.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    DriverManagerDataSource primary = new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", "");
+    DriverManagerDataSource replica = new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "");
+
+    ReplicaProperties properties = new ReplicaProperties();
+    ReplicaHealthChecker healthChecker;
+    ReplicaRoutingDataSource routingDataSource;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+
+    @BeforeEach
+    void before() {
+        init(primary, "primary");
+        init(replica, "replica");
+
+        properties.setLagQuery("select lag_millis from replication_lag");
+        properties.setMaxLag(Duration.ofSeconds(1));
+        properties.setPinAfterWrite(Duration.ofSeconds(5));
+
+        healthChecker = new ReplicaHealthChecker(Map.of("replica-0", replica), properties);
+        healthChecker.check();
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, healthChecker, properties);
+        routingDataSource.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ReplicaRoutingDataSource.clearPin();
+        RequestContextHolder.resetRequestAttributes();
+        new JdbcTemplate(primary).execute("drop all objects");
+        new JdbcTemplate(replica).execute("drop all objects");
+    }
+
+    @Test
+    void readOnlyGoesToReplica() {
+        assertThat(readOnly.execute(status -> node())).isEqualTo("replica");
+        assertThat(readWrite.execute(status -> node())).isEqualTo("primary");
+        assertThat(node()).isEqualTo("primary"); // 트랜잭션 없음
+    }
+
+    @Test
+    void pinToPrimaryAfterWrite() {
+        //given
+        routingDataSource.pinToPrimary();
+
+        //when
+        String pinned = readOnly.execute(status -> node());
+        ReplicaRoutingDataSource.clearPin();
+        String unpinned = readOnly.execute(status -> node());
+
+        //then
+        assertThat(pinned).isEqualTo("primary");
+        assertThat(unpinned).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("쓰기한 요청의 다음 요청도 pin-after-write 동안 primary 에서 읽는다.")
+    void pinCarriesOverToNextRequest() throws Exception {
+        //given
+        PrimaryPinFilter filter = new PrimaryPinFilter(properties.getPinAfterWrite().toMillis());
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        request(filter, new MockHttpServletRequest(), writeResponse, () -> routingDataSource.pinToPrimary());
+        Cookie pin = writeResponse.getCookie(PrimaryPinFilter.COOKIE);
+
+        //when
+        MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+        nextRequest.setCookies(pin);
+        String[] next = new String[1];
+        request(filter, nextRequest, new MockHttpServletResponse(), () -> next[0] = readOnly.execute(status -> node()));
+
+        //then
+        assertThat(pin).isNotNull();
+        assertThat(next[0]).isEqualTo("primary");
+        // 요청이 끝나면 스레드의 고정은 해제된다.
+        assertThat(ReplicaRoutingDataSource.isPinnedToPrimary()).isFalse();
+        assertThat(readOnly.execute(status -> node())).isEqualTo("replica");
+    }
+
+    @Test
+    void ignoreExpiredOrForgedPinCookie() throws Exception {
+        //given
+        PrimaryPinFilter filter = new PrimaryPinFilter(properties.getPinAfterWrite().toMillis());
+        long now = System.currentTimeMillis();
+
+        //when
+        boolean[] pinned = new boolean[2];
+        MockHttpServletRequest expired = new MockHttpServletRequest();
+        expired.setCookies(new Cookie(PrimaryPinFilter.COOKIE, Long.toString(now - 1)));
+        request(filter, expired, new MockHttpServletResponse(),
+                () -> pinned[0] = ReplicaRoutingDataSource.isPinnedToPrimary());
+        MockHttpServletRequest forged = new MockHttpServletRequest();
+        forged.setCookies(new Cookie(PrimaryPinFilter.COOKIE, Long.toString(now + 3_600_000)));
+        request(filter, forged, new MockHttpServletResponse(),
+                () -> pinned[1] = ReplicaRoutingDataSource.isPinnedToPrimary());
+
+        //then
+        assertThat(pinned).containsExactly(false, false);
+    }
+
+    @Test
+    void pinScopeClearsPin() {
+        //when
+        boolean pinnedInScope = ReplicaRoutingDataSource.pinScope(() -> {
+            routingDataSource.pinToPrimary();
+            return ReplicaRoutingDataSource.isPinnedToPrimary();
+        });
+
+        //then
+        assertThat(pinnedInScope).isTrue();
+        assertThat(ReplicaRoutingDataSource.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        //given
+        new JdbcTemplate(replica).update("update replication_lag set lag_millis = 5000");
+
+        //when
+        healthChecker.check();
+
+        //then
+        assertThat(healthChecker.getStatuses().get("replica-0").isHealthy()).isFalse();
+        assertThat(readOnly.execute(status -> node())).isEqualTo("primary");
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        //given
+        DriverManagerDataSource down = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/down", "sa", "");
+        ReplicaHealthChecker checker = new ReplicaHealthChecker(Map.of("replica-0", down), properties);
+        checker.check();
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, checker, properties);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(true);
+
+        //when
+        String node = transactionTemplate.execute(status -> new JdbcTemplate(dataSource)
+                .queryForObject("select name from node", String.class));
+
+        //then
+        assertThat(checker.getStatuses().get("replica-0").getError()).isNotNull();
+        assertThat(node).isEqualTo("primary");
+    }
+
+    // RequestContextFilter 처럼 요청, 응답을 스레드에 묶고 필터를 통과시킨다.
+    private static void request(PrimaryPinFilter filter, HttpServletRequest request, HttpServletResponse response,
+                                Runnable handler) throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            FilterChain chain = (req, res) -> handler.run();
+            filter.doFilter(request, response, chain);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void init(DataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table node (name varchar(20))");
+        jdbcTemplate.update("insert into node values (?)", name);
+        jdbcTemplate.execute("create table replication_lag (lag_millis bigint)");
+        jdbcTemplate.update("insert into replication_lag values (0)");
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.config.replica;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * open-in-view 로 요청 내내 EntityManager 가 열려 있어도 트랜잭션마다 커넥션을 다시 고르는지 확인한다.
+ * 인메모리 H2 두 개를 primary, 복제본으로 쓰고 DATABASE() 로 어느 쪽에서 실행됐는지 본다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.replica.enabled=true",
+        "spring.datasource.url=" + ReplicaRoutingJpaTest.PRIMARY_URL,
+        "querydsl.replica.replicas[0].url=" + ReplicaRoutingJpaTest.REPLICA_URL,
+        "querydsl.replica.replicas[0].username=sa",
+        "querydsl.replica.replicas[0].password="})
+@AutoConfigureMockMvc
+class ReplicaRoutingJpaTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void readOnlyThenWriteInOneRequest() throws Exception {
+        //when : 한 요청에서 읽기 전용 트랜잭션 -> 쓰기 트랜잭션 -> 읽기 전용 트랜잭션
+        mockMvc.perform(post("/test/replica/read-write-read"))
+                .andExpect(status().isOk())
+                //then : 쓰기는 primary, 쓰기 뒤 읽기는 primary 고정
+                .andExpect(content().string("routing_replica,routing_primary,routing_primary"));
+
+        JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+        List<String> names = primary.queryForList("select name from team where name = 'routingTeam'", String.class);
+        assertThat(names).containsExactly("routingTeam");
+        primary.update("delete from team where name = 'routingTeam'");
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        NodeController nodeController(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+            return new NodeController(entityManager, transactionManager);
+        }
+    }
+
+    @RestController
+    static class NodeController {
+
+        private final EntityManager entityManager;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        NodeController(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+            this.entityManager = entityManager;
+            this.readOnly = new TransactionTemplate(transactionManager);
+            this.readOnly.setReadOnly(true);
+            this.readWrite = new TransactionTemplate(transactionManager);
+        }
+
+        @PostMapping("/test/replica/read-write-read")
+        String readWriteRead() {
+            String read = readOnly.execute(status -> database());
+            String write = readWrite.execute(status -> {
+                entityManager.persist(new Team("routingTeam"));
+                entityManager.flush();
+                return database();
+            });
+            String readAfterWrite = readOnly.execute(status -> database());
+            return read + "," + write + "," + readAfterWrite;
+        }
+
+        private String database() {
+            String name = (String) entityManager.createNativeQuery("select database()").getSingleResult();
+            return name.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            members.add(new Member("member" + i, i % 50, teamA));
+        }
+        memberRepository.saveAll(members);
+    }
+
+    @Test
+    void pageSizeCap() throws Exception {
+        mockMvc.perform(get("/v6/members").param("team.name", "teamA").param("size", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(100))
+                .andExpect(jsonPath("$.content.length()").value(100))
+                .andExpect(jsonPath("$.totalElements").value(120));
+    }
+
+    @Test
+    void invalidSearchIsBadRequest() throws Exception {
+        // 인덱스를 못 타는 검색
+        mockMvc.perform(get("/v6/members").param("userName", "*mb*"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("userName")));
+        // 허용하지 않은 정렬
+        mockMvc.perform(get("/v6/members").param("sort", "team.name"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("team.name")));
+        // 알 수 없는 필드
+        mockMvc.perform(get("/v1/members").param("fields", "userName,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("password")));
+        // 잘못된 커서
+        mockMvc.perform(get("/v4/members").param("cursor", "garbage!"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("garbage!")));
+    }
+}
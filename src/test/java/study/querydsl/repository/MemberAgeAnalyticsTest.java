@@ -0,0 +1,174 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MemberAgeColumns.Aggregate;
+import study.querydsl.support.Await;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest.aggregation, group 과 같은 집계를 DB 결과와 비교한다.
+ * 커밋된 변경 이벤트로 반영되므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ */
+@SpringBootTest(properties = "querydsl.analytics.enabled=true")
+class MemberAgeAnalyticsTest {
+
+    @Autowired
+    MemberAgeAnalytics memberAgeAnalytics;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        memberAgeAnalytics.reload();
+    }
+
+    @Test
+    void sameAsDatabase() {
+        //given : 이름이 같은 팀이 둘 (group by team.name 은 하나로 합친다.)
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Team otherTeamA = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.save(new Member("member3", 30, teamB));
+        memberRepository.save(new Member("member4", 40, teamB));
+        memberRepository.save(new Member("member5", 30, otherTeamA));
+        Member noTeam = memberRepository.save(new Member("member6", 50));
+
+        //when
+        memberAgeAnalytics.reload();
+
+        //then
+        assertSameAsDatabase();
+        assertThat(memberAgeAnalytics.ageStatisticsByTeamName()).containsOnlyKeys("teamA", "teamB");
+        assertThat(memberAgeAnalytics.ageStatisticsByTeamName().get("teamA").getAvg()).isEqualTo(20);
+
+        //when : 커밋된 쓰기 (이벤트로 반영)
+        memberRepository.save(new Member("member7", 50, teamB));
+        memberRepository.delete(noTeam);
+        Team renamed = teamRepository.findById(otherTeamA.getId()).orElseThrow();
+        renamed.setName("teamC");
+        teamRepository.save(renamed);
+
+        //then
+        assertSameAsDatabase();
+        assertThat(memberAgeAnalytics.ageStatistics().getCount()).isEqualTo(6);
+        assertThat(memberAgeAnalytics.ageStatisticsByTeamName()).containsOnlyKeys("teamA", "teamB", "teamC");
+    }
+
+    @Test
+    void replayChangesCommittedDuringReload() {
+        //given
+        Member member1 = memberRepository.save(new Member("member1", 10));
+        Member member2 = memberRepository.save(new Member("member2", 20));
+        memberRepository.save(new Member("member3", 30));
+
+        // 회원 행을 다 읽은 뒤, 새 저장소로 바꾸기 전에 변경이 커밋된 상황
+        MemberAgeAnalytics[] analytics = new MemberAgeAnalytics[1];
+        JdbcTemplate slowLoad = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+                super.query(psc, rch);
+                analytics[0].append(member1.getId(), 99, null);
+                analytics[0].remove(member2.getId());
+            }
+        };
+        analytics[0] = new MemberAgeAnalytics(slowLoad, true, 500);
+
+        //when
+        try {
+            analytics[0].reload();
+
+            //then
+            Aggregate aggregate = analytics[0].ageStatistics();
+            assertThat(aggregate.getCount()).isEqualTo(2);
+            assertThat(aggregate.getSum()).isEqualTo(129);
+            assertThat(aggregate.getMax()).isEqualTo(99);
+        } finally {
+            analytics[0].stop();
+        }
+    }
+
+    @Test
+    void reloadAfterBulkUpdate() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        memberAgeAnalytics.reload();
+        assertThat(memberAgeAnalytics.ageStatistics().getSum()).isEqualTo(30);
+
+        //when : 벌크 update 는 바뀐 행을 알 수 없어 비동기로 다시 읽는다.
+        transactionTemplate.executeWithoutResult(status -> jpaQueryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        //then
+        Await.until(() -> memberAgeAnalytics.ageStatistics().getSum() == 32, Duration.ofSeconds(10));
+        assertSameAsDatabase();
+    }
+
+    private void assertSameAsDatabase() {
+        Tuple total = jpaQueryFactory
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.max(), member.age.min())
+                .from(member)
+                .fetchOne();
+        assertSame(memberAgeAnalytics.ageStatistics(), total);
+
+        List<Tuple> byTeamName = jpaQueryFactory
+                .select(team.name, member.count(), member.age.sum(), member.age.avg(), member.age.max(), member.age.min())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch();
+        Map<String, Aggregate> statistics = memberAgeAnalytics.ageStatisticsByTeamName();
+        assertThat(statistics).hasSize(byTeamName.size());
+        for (Tuple row : byTeamName) {
+            assertSame(statistics.get(row.get(team.name)), row);
+        }
+    }
+
+    private static void assertSame(Aggregate aggregate, Tuple row) {
+        assertThat(aggregate.getCount()).isEqualTo(row.get(member.count()));
+        Object sum = row.get(member.age.sum());
+        assertThat(aggregate.getSum()).isEqualTo(((Number) sum).longValue());
+        assertThat(aggregate.getAvg()).isEqualTo(row.get(member.age.avg()));
+        assertThat(aggregate.getMax()).isEqualTo(row.get(member.age.max()));
+        assertThat(aggregate.getMin()).isEqualTo(row.get(member.age.min()));
+    }
+}
@@ -0,0 +1,135 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkJobProgress;
+import study.querydsl.repository.support.BulkJobRunner;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QBulkJobCheckpoint.bulkJobCheckpoint;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 청크마다 별도 트랜잭션(REQUIRES_NEW)으로 커밋하므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ */
+@SpringBootTest
+class MemberBulkJobTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    BulkJobRunner bulkJobRunner;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Member member = new Member("member" + i, i);
+            member.setTeam(i % 2 == 0 ? teamA : teamB);
+            members.add(member);
+        }
+        memberJpaRepository.saveAll(members);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> jpaQueryFactory.delete(bulkJobCheckpoint).execute());
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void addAgeInChunks() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        BulkJobProgress result = memberJpaRepository.addAgeInChunks("addAge", condition, 1000);
+
+        //then
+        assertThat(result.getAffectedRows()).isEqualTo(50);
+        assertThat(jpaQueryFactory
+                .select(team.name)
+                .from(member)
+                .join(member.team, team)
+                .where(member.age.goe(1000))
+                .fetch())
+                .containsOnly("teamA")
+                .hasSize(50);
+        assertThat(entityManager.find(BulkJobCheckpoint.class, "addAge")).isNull();
+    }
+
+    @Test
+    void resumeAfterFailure() {
+        //given
+        List<BulkJobProgress> progresses = new ArrayList<>();
+        AtomicInteger executed = new AtomicInteger();
+        BulkJobRunner.ChunkOperation failOnThirdChunk = (queryFactory, chunk) -> {
+            if (executed.incrementAndGet() == 3) {
+                throw new IllegalStateException("chunk failed");
+            }
+            return queryFactory.update(member).set(member.age, member.age.add(1000)).where(chunk).execute();
+        };
+
+        //when
+        assertThatThrownBy(() -> bulkJobRunner.run("resume", member, member.id, null,
+                failOnThirdChunk, 10, 0, progresses::add))
+                .isInstanceOf(IllegalStateException.class);
+
+        BulkJobCheckpoint checkpoint = entityManager.find(BulkJobCheckpoint.class, "resume");
+        long updatedBeforeFailure = jpaQueryFactory.select(member.count()).from(member)
+                .where(member.age.goe(1000))
+                .fetchOne();
+        BulkJobProgress result = bulkJobRunner.run("resume", member, member.id, null,
+                failOnThirdChunk, 10, 0, progresses::add);
+
+        //then
+        // id 는 시퀀스 할당 단위, 다른 테스트 때문에 연속이 아닐 수 있으므로 청크 수 대신 id 구간과 행 수로 확인한다.
+        assertThat(checkpoint.getChunks()).isEqualTo(2);
+        assertThat(checkpoint.getLastId()).isEqualTo(checkpoint.getMinId() + 19);
+        assertThat(checkpoint.getAffectedRows()).isEqualTo(updatedBeforeFailure);
+        assertThat(result.getAffectedRows()).isEqualTo(100);
+        assertThat(result.getLastId()).isEqualTo(result.getMaxId());
+        assertThat(result.getRatio()).isEqualTo(1.0);
+        assertThat(progresses).hasSize((int) result.getChunks());
+        // 실패한 청크는 롤백되고 다시 실행되므로 모든 회원이 정확히 한 번씩 수정된다.
+        assertThat(jpaQueryFactory.selectFrom(member).where(member.age.lt(1000)).fetch()).isEmpty();
+        assertThat(jpaQueryFactory.selectFrom(member).where(member.age.goe(1100)).fetch()).isEmpty();
+    }
+}
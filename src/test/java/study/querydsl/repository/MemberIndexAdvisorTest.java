@@ -0,0 +1,37 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.repository.MemberIndexAdvisor.ShapeReport;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.dto.MemberSearchCondition.*;
+
+@SpringBootTest
+class MemberIndexAdvisorTest {
+
+    @Autowired
+    MemberIndexAdvisor memberIndexAdvisor;
+
+    @Test
+    void explainShapes() {
+        //when
+        List<ShapeReport> reports = memberIndexAdvisor.reports();
+
+        //then
+        assertThat(reports).hasSize(SHAPE_COUNT);
+        assertThat(report(reports, 0).isFullScan()).as("조건 없음").isTrue();
+        assertThat(report(reports, USER_NAME).isFullScan()).as("회원명 인덱스").isFalse();
+        assertThat(report(reports, AGE_GOE | AGE_LOE).isFullScan()).as("나이 인덱스").isFalse();
+    }
+
+    private ShapeReport report(List<ShapeReport> reports, int shape) {
+        return reports.stream()
+                .filter(report -> report.getShape() == shape)
+                .findFirst()
+                .orElseThrow();
+    }
+}
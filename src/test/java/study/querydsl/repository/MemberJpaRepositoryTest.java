@@ -1,16 +1,22 @@
 package study.querydsl.repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.BulkInsertResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCounter;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,6 +28,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     EntityManager entityManager;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
@@ -66,12 +75,73 @@ class MemberJpaRepositoryTest {
         condition.setAgeLoe(40);
         condition.setTeamName("teamB");
 
+        entityManager.flush();
+        entityManager.clear();
+
         //when
-        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+        List<MemberTeamDto> result = SqlCounter.count(() -> memberJpaRepository.search(condition))
+                .assertStatementCount(1)
+                .getResult();
 
         //then
         assertThat(result)
                 .extracting("userName")
                 .containsExactly("member4");
     }
+
+    @Test
+    void searchStreamTest() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+
+        for (int i = 0; i < 10; i++) {
+            entityManager.persist(new Member("member" + i, i, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5);
+
+        //when
+        List<MemberTeamDto> result = new ArrayList<>();
+        long count = memberJpaRepository.searchStream(condition, result::add);
+
+        //then
+        assertThat(count).isEqualTo(5);
+        assertThat(result)
+                .extracting("teamName")
+                .containsOnly("teamA");
+    }
+
+    @Test
+    void saveAllBatchTest() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        entityManager.flush();
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Member member = new Member("member" + i, i);
+            member.setTeam(teamA);
+            members.add(member);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        BulkInsertResult result = SqlCounter.count(() -> memberJpaRepository.saveAll(members))
+                // flush 10 회마다 회원 insert 배치 1 회 + 회원명 n-gram insert 배치 1 회
+                .assertInsertCount(20)
+                .getResult();
+
+        //then
+        assertThat(result.getCount()).isEqualTo(1000);
+        assertThat(result.getRowsPerSecond()).isPositive();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1000);
+        // 배치가 아니면 insert 마다 PreparedStatement 를 만든다. (1000 회 이상)
+        // 회원 insert 배치 10 회 + n-gram insert 배치 10 회 + 시퀀스 조회 약 20 회
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(50);
+    }
 }
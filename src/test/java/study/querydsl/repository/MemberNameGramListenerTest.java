@@ -0,0 +1,82 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.support.Await;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 벌크 update, delete 후 n-gram 은 커밋 이벤트로 다시 만들어지므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ */
+@SpringBootTest
+class MemberNameGramListenerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from member_name_gram");
+    }
+
+    @Test
+    void rebuildAfterBulkRenameAndDelete() {
+        //given
+        Member kim = memberRepository.save(new Member("KimYoungHan", 10));
+        Member lee = memberRepository.save(new Member("LeeYoung", 20));
+        assertThat(hasGram(kim.getId(), "you")).isTrue();
+
+        //when : 벌크 이름 변경
+        transactionTemplate.executeWithoutResult(status -> jpaQueryFactory
+                .update(member)
+                .set(member.userName, "KimChulsu")
+                .where(member.id.eq(kim.getId()))
+                .execute());
+
+        //then
+        Await.until(() -> hasGram(kim.getId(), "chu"), Duration.ofSeconds(10));
+        assertThat(hasGram(kim.getId(), "you")).isFalse();
+
+        //when : 벌크 삭제
+        transactionTemplate.executeWithoutResult(status -> jpaQueryFactory
+                .delete(member)
+                .where(member.id.eq(lee.getId()))
+                .execute());
+
+        //then : 삭제된 회원의 n-gram 이 남지 않는다.
+        Await.until(() -> gramCount(lee.getId()) == 0, Duration.ofSeconds(10));
+        assertThat(gramCount(kim.getId())).isEqualTo(MemberNameSearch.grams("KimChulsu").size());
+    }
+
+    private boolean hasGram(Long memberId, String gram) {
+        Long count = jdbcTemplate.queryForObject(
+                "select count(*) from member_name_gram where member_id = ? and gram = ?", Long.class, memberId, gram);
+        return count != null && count > 0;
+    }
+
+    private long gramCount(Long memberId) {
+        Long count = jdbcTemplate.queryForObject(
+                "select count(*) from member_name_gram where member_id = ?", Long.class, memberId);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,164 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCounter;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberNameSearchTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberNameGramListener memberNameGramListener;
+
+    Member kim;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        kim = new Member("KimYoungHan", 10, teamA);
+        entityManager.persist(kim);
+        entityManager.persist(new Member("LeeYoung", 20, teamA));
+        entityManager.persist(new Member("ParkMinsu", 30, teamB));
+        entityManager.flush();
+    }
+
+    @Test
+    void userNameContains() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserNameContains("young");
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        //then
+        assertThat(result).extracting("userName").containsExactlyInAnyOrder("KimYoungHan", "LeeYoung");
+    }
+
+    @Test
+    void userNameContainsWithTeamAndAge() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserNameContains("oun");
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        //then
+        assertThat(result).extracting("userName").containsExactly("LeeYoung");
+    }
+
+    @Test
+    void shortKeywordFallsBackToLike() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserNameContains("su");
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        //then
+        assertThat(result).extracting("userName").containsExactly("ParkMinsu");
+    }
+
+    @Test
+    void userNameStartsWith() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserNameStartsWith("Kim");
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        //then
+        assertThat(result).extracting("userName").containsExactly("KimYoungHan");
+    }
+
+    @Test
+    void gramsFollowUpdateAndDelete() {
+        //given
+        kim.setUserName("KimChulsu");
+        entityManager.flush();
+
+        MemberSearchCondition oldName = new MemberSearchCondition();
+        oldName.setUserNameContains("younghan");
+        MemberSearchCondition newName = new MemberSearchCondition();
+        newName.setUserNameContains("chul");
+
+        //when
+        List<MemberTeamDto> oldResult = memberRepository.search(oldName);
+        List<MemberTeamDto> newResult = memberRepository.search(newName);
+
+        entityManager.remove(kim);
+        entityManager.flush();
+
+        //then
+        assertThat(oldResult).isEmpty();
+        assertThat(newResult).extracting("userName").containsExactly("KimChulsu");
+        assertThat(gramCount(kim.getId())).isZero();
+    }
+
+    @Test
+    void gramsWrittenInOneBatchPerFlush() {
+        //given
+        Member lee = memberRepository.findByUserName("LeeYoung").get(0);
+        lee.setUserName("LeeMinho");
+        entityManager.persist(new Member("ChoiYoung", 40));
+        entityManager.persist(new Member("JungYoung", 50));
+
+        //when : 회원 insert 배치 1 + n-gram insert 배치 1, 회원 update 1 + n-gram delete 배치 1
+        SqlCounter.count(() -> entityManager.flush())
+                .assertInsertCount(2)
+                .assertUpdateCount(1)
+                .assertDeleteCount(1);
+
+        //then
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserNameContains("young");
+        assertThat(memberRepository.search(condition)).extracting("userName")
+                .containsExactlyInAnyOrder("KimYoungHan", "ChoiYoung", "JungYoung");
+        assertThat(gramCount(lee.getId())).isEqualTo(MemberNameSearch.grams("LeeMinho").size());
+    }
+
+    @Test
+    void rebuild() {
+        //when
+        long indexed = memberNameGramListener.rebuild();
+
+        //then
+        assertThat(indexed).isGreaterThanOrEqualTo(3);
+        assertThat(gramCount(kim.getId())).isEqualTo(MemberNameSearch.grams("KimYoungHan").size());
+    }
+
+    private long gramCount(Long memberId) {
+        return entityManager.createQuery(
+                        "select count(g) from MemberNameGram g where g.memberId = :memberId", Long.class)
+                .setParameter("memberId", memberId)
+                .getSingleResult();
+    }
+}
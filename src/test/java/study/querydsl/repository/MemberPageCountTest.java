@@ -0,0 +1,117 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ApproximatePage;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.support.SqlCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 쓰기 트랜잭션 안에서는 카운트를 캐시하지 않으므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ * 추정치 기준을 낮춰서 테스트 데이터만으로 추정치 응답이 나오게 한다.
+ */
+@SpringBootTest(properties = "querydsl.count.estimate-threshold=4")
+class MemberPageCountTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    PageRequest pageRequest = PageRequest.of(0, 2);
+
+    @BeforeEach
+    void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        for (int i = 1; i <= 4; i++) {
+            Member member = new Member("member" + i, i * 10);
+            member.setTeam(teamA);
+            memberRepository.save(member);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void cachedCount() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        memberRepository.searchPageComplex(condition, pageRequest, CountStrategy.CACHED); // 카운트 캐시 적재
+        Member member5 = new Member("member5", 50);
+        member5.setTeam(teamRepository.findByName("teamA").orElseThrow());
+        memberRepository.save(member5);
+
+        //when
+        Page<MemberTeamDto> cached = SqlCounter.count(
+                        () -> memberRepository.searchPageComplex(condition, pageRequest, CountStrategy.CACHED))
+                .assertSelectCount(1) // 데이터 조회만
+                .getResult();
+        Page<MemberTeamDto> exact = memberRepository.searchPageComplex(condition, pageRequest, CountStrategy.EXACT);
+
+        //then
+        assertThat(cached.getTotalElements()).isEqualTo(4);
+        assertThat(exact.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void estimatedCount() {
+        //when
+        Page<MemberTeamDto> result = SqlCounter.count(() -> memberRepository.searchPageComplex(
+                        new MemberSearchCondition(), pageRequest, CountStrategy.ESTIMATED))
+                .assertSelectCount(1) // 데이터 조회만 (통계는 JdbcTemplate 으로 조회)
+                .getResult();
+
+        //then
+        assertThat(result).isInstanceOf(ApproximatePage.class);
+        assertThat(((ApproximatePage<MemberTeamDto>) result).isTotalEstimated()).isTrue();
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.hasNext()).isTrue();
+    }
+
+    @Test
+    void estimatedLastFullPageCountsExactly() {
+        //when : 4건 중 3~4번째, 페이지가 딱 맞게 차는 마지막 페이지
+        Page<MemberTeamDto> result = SqlCounter.count(() -> memberRepository.searchPageComplex(
+                        new MemberSearchCondition(), PageRequest.of(1, 2), CountStrategy.ESTIMATED))
+                .assertSelectCount(1) // pageSize + 1 건 조회로 마지막 페이지임을 알므로 카운트 생략
+                .getResult();
+
+        //then
+        assertThat(result).isNotInstanceOf(ApproximatePage.class);
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void estimatedWithConditionCountsExactly() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest, CountStrategy.ESTIMATED);
+
+        //then
+        assertThat(result).isNotInstanceOf(ApproximatePage.class);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+}
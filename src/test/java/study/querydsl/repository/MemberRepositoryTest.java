@@ -1,22 +1,38 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
+import org.springframework.data.querydsl.binding.QuerydslPredicateBuilder;
+import org.springframework.data.util.ClassTypeInformation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import study.querydsl.dto.InvalidSearchException;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.support.SqlCounter;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Transactional
 @SpringBootTest
@@ -69,8 +85,13 @@ class MemberRepositoryTest {
         condition.setAgeLoe(40);
         condition.setTeamName("teamB");
 
+        entityManager.flush();
+        entityManager.clear();
+
         //when
-        List<MemberTeamDto> result = memberRepository.search(condition);
+        List<MemberTeamDto> result = SqlCounter.count(() -> memberRepository.search(condition))
+                .assertStatementCount(1)
+                .getResult();
 
         //then
         assertThat(result)
@@ -101,8 +122,13 @@ class MemberRepositoryTest {
         MemberSearchCondition condition = new MemberSearchCondition();
         PageRequest pageRequest = PageRequest.of(0, 3);
 
+        entityManager.flush();
+        entityManager.clear();
+
         //when
-        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+        Page<MemberTeamDto> result = SqlCounter.count(() -> memberRepository.searchPageComplex(condition, pageRequest))
+                .assertSelectCount(2) // 데이터 조회 + 카운트
+                .getResult();
 
         //then
         assertThat(result.getSize())
@@ -112,6 +138,207 @@ class MemberRepositoryTest {
                 .containsExactly("member1", "member2", "member3");
     }
     
+    @Test
+    @DisplayName("Slice 테스트 (카운트 쿼리 없음)")
+    void searchSlice() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        for (int i = 1; i <= 4; i++) {
+            entityManager.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        Slice<MemberTeamDto> first = SqlCounter.count(() -> memberRepository.searchSlice(condition, PageRequest.of(0, 2)))
+                .assertSelectCount(1)
+                .getResult();
+        // 마지막 페이지가 딱 맞게 차도 다음 페이지가 없다고 알아야 한다.
+        Slice<MemberTeamDto> last = SqlCounter.count(() -> memberRepository.searchSlice(condition, PageRequest.of(1, 2)))
+                .assertSelectCount(1)
+                .getResult();
+        Slice<MemberTeamDto> partial = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+
+        //then
+        assertThat(first.getNumberOfElements()).isEqualTo(2);
+        assertThat(first.hasNext()).isTrue();
+
+        assertThat(last.getNumberOfElements()).isEqualTo(2);
+        assertThat(last.hasNext()).isFalse();
+
+        assertThat(partial.getNumberOfElements()).isEqualTo(1);
+        assertThat(partial.hasNext()).isFalse();
+
+        // 정렬 없이도 id 순서라 이어지는 slice 가 겹치지 않는다.
+        assertThat(first.getContent()).extracting("userName").containsExactly("member1", "member2");
+        assertThat(last.getContent()).extracting("userName").containsExactly("member3", "member4");
+    }
+
+    @Test
+    void searchSliceSorted() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        entityManager.persist(new Member("member1", 20, teamA));
+        entityManager.persist(new Member("member2", 10, teamA));
+        entityManager.persist(new Member("member3", 20, teamA));
+        entityManager.persist(new Member("member4", 30, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        Sort ageDesc = Sort.by(Sort.Direction.DESC, "age");
+
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2, ageDesc));
+        Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, PageRequest.of(1, 2, ageDesc));
+        Slice<Map<String, Object>> fields = memberRepository.searchSlice(
+                condition, PageRequest.of(0, 3, ageDesc), List.of(MemberField.USER_NAME));
+
+        //then : 나이가 같으면 id 순서
+        assertThat(first.getContent()).extracting("userName").containsExactly("member4", "member1");
+        assertThat(second.getContent()).extracting("userName").containsExactly("member3", "member2");
+        assertThat(fields.getContent()).extracting(row -> row.get("userName"))
+                .containsExactly("member4", "member1", "member3");
+        assertThatThrownBy(() -> memberRepository.searchSlice(
+                condition, PageRequest.of(0, 2, Sort.by("team.name"))))
+                .isInstanceOf(InvalidSearchException.class);
+
+        assertThat(first.getContent()).doesNotContainAnyElementsOf(last.getContent());
+    }
+
+    @Test
+    @DisplayName("fields 로 요청한 필드만 조회")
+    void searchWithFields() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        List<Map<String, Object>> memberOnly = SqlCounter.count(() -> memberRepository.search(condition,
+                        List.of(MemberField.USER_NAME, MemberField.AGE)))
+                .assertSelectCount(1)
+                .assertJoinCount(0)
+                .getResult();
+        // teamId 는 회원의 외래 키라서 조인하지 않는다.
+        List<Map<String, Object>> teamId = SqlCounter.count(() -> memberRepository.search(condition,
+                        List.of(MemberField.USER_NAME, MemberField.TEAM_ID)))
+                .assertJoinCount(0)
+                .getResult();
+        List<Map<String, Object>> teamName = SqlCounter.count(() -> memberRepository.search(condition,
+                        List.of(MemberField.USER_NAME, MemberField.TEAM_NAME)))
+                .assertJoinCount(1)
+                .getResult();
+
+        //then
+        assertThat(memberOnly).hasSize(2);
+        assertThat(memberOnly).allSatisfy(row -> assertThat(row).containsOnlyKeys("userName", "age"));
+        assertThat(memberOnly.get(0).keySet()).containsExactly("userName", "age");
+
+        assertThat(teamId).extracting(row -> row.get("teamId")).containsExactlyInAnyOrder(teamA.getId(), null);
+        // 팀 필드만 있으면 외부 조인이므로 팀 없는 회원도 나온다.
+        assertThat(teamName).extracting(row -> row.get("teamName")).containsExactlyInAnyOrder("teamA", null);
+    }
+
+    @Test
+    @DisplayName("fields 페이징, 팀명 조건이 있으면 팀 필드가 없어도 조인")
+    void searchPageAndSliceWithFields() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamA));
+        entityManager.persist(new Member("member4", 40, teamB));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<MemberField> fields = MemberField.parse("age");
+
+        //when
+        Page<Map<String, Object>> page = SqlCounter.count(() -> memberRepository.searchPageComplex(
+                        condition, PageRequest.of(0, 2), CountStrategy.EXACT, fields))
+                .assertSelectCount(2) // 데이터 조회 + 카운트
+                .assertJoinCount(2)
+                .getResult();
+        Slice<Map<String, Object>> slice = SqlCounter.count(() -> memberRepository.searchSlice(
+                        condition, PageRequest.of(1, 2), fields))
+                .assertSelectCount(1)
+                .assertJoinCount(1)
+                .getResult();
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).allSatisfy(row -> assertThat(row).containsOnlyKeys("age"));
+        assertThat(slice.getContent()).hasSize(1);
+        assertThat(slice.hasNext()).isFalse();
+    }
+
+    @Test
+    void parseMemberFields() {
+        assertThat(MemberField.parse("age, userName,age"))
+                .containsExactly(MemberField.AGE, MemberField.USER_NAME);
+        assertThat(MemberField.parse("")).containsExactly(MemberField.values());
+        assertThatThrownBy(() -> MemberField.parse("userName,password"))
+                .isInstanceOf(InvalidSearchException.class)
+                .hasMessageContaining("password");
+    }
+
+    @Test
+    @DisplayName("커서 페이징 테스트")
+    void searchByCursor() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 20, teamA);
+        Member member4 = new Member("member4", 40, teamA);
+
+        entityManager.persist(member1);
+        entityManager.persist(member2);
+        entityManager.persist(member3);
+        entityManager.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        MemberCursorPage first = memberRepository.searchByCursor(condition, null, 2);
+        MemberCursorPage second = memberRepository.searchByCursor(condition, first.getNextCursor(), 2);
+
+        //then
+        assertThat(first.getContent())
+                .extracting("userName")
+                .containsExactly("member1", "member2");
+        assertThat(first.isHasNext()).isTrue();
+
+        assertThat(second.getContent())
+                .extracting("userName")
+                .containsExactly("member3", "member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
     @Test
     void querydslPredicateExecutorTest() {
         //given
@@ -144,5 +371,103 @@ class MemberRepositoryTest {
             System.out.println("findMember = " + findMember);
         }
     }
-        
+
+    @Test
+    @DisplayName("웹 파라미터 Predicate 바인딩 (/v6/members)")
+    void searchByPredicate() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.persist(new Member("other", 35, teamB));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("team.name", "teamB");
+        params.add("age", "40");
+        params.add("age", "30");
+        params.add("userName", "mem*");
+        // 허용하지 않은 속성은 무시한다.
+        params.add("team.members.userName", "member1");
+
+        //when
+        Page<MemberTeamDto> result = SqlCounter.count(() -> memberRepository.searchByPredicate(
+                        predicate(params), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "age"))))
+                .assertSelectCount(1) // 첫 페이지에서 끝나므로 카운트 생략
+                .assertJoinCount(1) // 팀명 조건도 같은 team 조인을 쓴다.
+                .getResult();
+
+        //then
+        assertThat(result.getContent())
+                .extracting("userName")
+                .containsExactly("member4", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("팀 조건이 없으면 팀 없는 회원도 조회하고 카운트 쿼리는 조인하지 않는다")
+    void searchByPredicateWithoutTeamCondition() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        Page<MemberTeamDto> result = SqlCounter.count(() -> memberRepository.searchByPredicate(
+                        predicate(params("userName", "mem*")), PageRequest.of(0, 2)))
+                .assertSelectCount(2)
+                .assertJoinCount(1) // 데이터 조회의 left join 만
+                .getResult();
+
+        //then
+        assertThat(result.getContent())
+                .extracting("userName")
+                .containsExactly("member1", "member2");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("인덱스를 못 타는 검색과 허용하지 않은 정렬은 거부")
+    void searchByPredicateRejected() {
+        assertThatThrownBy(() -> predicate(params("userName", "*mb")))
+                .isInstanceOf(InvalidSearchException.class);
+        assertThatThrownBy(() -> predicate(params("userName", "*mb*")))
+                .isInstanceOf(InvalidSearchException.class);
+        assertThatThrownBy(() -> predicate(params("age", "10", "20", "30")))
+                .isInstanceOf(InvalidSearchException.class);
+
+        assertThatThrownBy(() -> memberRepository.searchByPredicate(
+                predicate(params("userName", "member1")), PageRequest.of(0, 10, Sort.by("team.name"))))
+                .isInstanceOf(InvalidSearchException.class);
+    }
+
+    private Predicate predicate(MultiValueMap<String, String> params) {
+        QuerydslBindings bindings = new QuerydslBindings();
+        memberRepository.customize(bindings, QMember.member);
+        return new QuerydslPredicateBuilder(DefaultConversionService.getSharedInstance(), SimpleEntityPathResolver.INSTANCE)
+                .getPredicate(ClassTypeInformation.from(Member.class), params, bindings);
+    }
+
+    private static MultiValueMap<String, String> params(String name, String... values) {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        for (String value : values) {
+            params.add(name, value);
+        }
+        return params;
+    }
 }
@@ -0,0 +1,75 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCounter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 쓰기 트랜잭션 안에서는 캐시를 사용하지 않으므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ */
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bulkUpdateEvictsSearchCache() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Member member1 = new Member("member1", 10);
+        member1.setTeam(teamA);
+        memberRepository.save(member1);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        memberRepository.search(condition); // 캐시 적재
+
+        //when
+        List<MemberTeamDto> cached = SqlCounter.count(() -> memberRepository.search(condition))
+                .assertStatementCount(0)
+                .getResult();
+
+        transactionTemplate.executeWithoutResult(status -> jpaQueryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        List<MemberTeamDto> reloaded = SqlCounter.count(() -> memberRepository.search(condition))
+                .assertSelectCount(1)
+                .getResult();
+
+        //then
+        assertThat(cached).extracting("age").containsExactly(10);
+        assertThat(reloaded).extracting("age").containsExactly(11);
+    }
+}
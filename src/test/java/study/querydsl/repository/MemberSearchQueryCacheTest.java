@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberSearchQueryCacheTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberSearchQueryCache memberSearchQueryCache;
+
+    @Test
+    void sameShapeReusesQuery() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition first = new MemberSearchCondition();
+        first.setTeamName("teamA");
+        first.setAgeGoe(15);
+
+        MemberSearchCondition second = new MemberSearchCondition();
+        second.setTeamName("teamB");
+        second.setAgeGoe(35);
+
+        //when
+        List<MemberTeamDto> firstResult = memberSearchQueryCache.search(first);
+        long missCount = memberSearchQueryCache.getMissCount();
+        long hitCount = memberSearchQueryCache.getHitCount();
+        List<MemberTeamDto> secondResult = memberSearchQueryCache.search(second);
+
+        //then
+        assertThat(first.shape()).isEqualTo(second.shape());
+        assertThat(firstResult).extracting("userName").containsExactly("member2");
+        assertThat(secondResult).extracting("userName").containsExactly("member4");
+        assertThat(memberSearchQueryCache.getMissCount()).isEqualTo(missCount);
+        assertThat(memberSearchQueryCache.getHitCount()).isEqualTo(hitCount + 1);
+        assertThat(memberSearchQueryCache.count(second)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,214 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.Await;
+import study.querydsl.support.SqlCounter;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 스냅샷은 커밋된 변경만 반영하므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ */
+@SpringBootTest(properties = "querydsl.snapshot.enabled=true")
+class MemberSnapshotTest {
+
+    @Autowired
+    MemberSnapshot memberSnapshot;
+
+    @Autowired
+    MemberSearchQueryCache memberSearchQueryCache;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @BeforeEach
+    void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Member member = new Member("member" + i, i);
+            member.setTeam(i % 2 == 0 ? teamA : teamB);
+            members.add(member);
+        }
+        members.add(new Member("noTeam", 10));
+        memberJpaRepository.saveAll(members);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        // 벌크 delete 는 이벤트가 없으므로 다시 읽는다.
+        memberSnapshot.reload();
+    }
+
+    @Test
+    void sameAsDatabase() {
+        //given
+        memberSnapshot.reload();
+
+        //when //then
+        assertThat(memberSnapshot.size()).isEqualTo(101);
+        for (MemberSearchCondition condition : conditions()) {
+            List<MemberTeamDto> expected = new ArrayList<>(memberSearchQueryCache.search(condition));
+            expected.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+
+            assertThat(memberSnapshot.search(condition)).as(condition.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void followsCommittedWrites() {
+        //given : before() 의 insert 는 커밋 후 이벤트로 이미 반영되어 있다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserName("member1");
+        assertThat(memberSnapshot.search(condition)).extracting("age").containsExactly(1);
+
+        //when : 변경 후 커밋
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = memberRepository.findByUserName("member1").get(0);
+            member1.setAge(50);
+            Member member2 = memberRepository.findByUserName("member2").get(0);
+            entityManager.remove(member2);
+        });
+        //when : 변경 후 롤백
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findByUserName("member3").get(0).setAge(70);
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(memberSnapshot.search(condition)).extracting("age").containsExactly(50);
+        condition.setUserName("member2");
+        assertThat(memberSnapshot.search(condition)).isEmpty();
+        condition.setUserName("member3");
+        assertThat(memberSnapshot.search(condition)).extracting("age").containsExactly(3);
+    }
+
+    @Test
+    void routeSearchToSnapshot() {
+        //given
+        memberSnapshot.reload();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(90);
+
+        //when
+        List<MemberTeamDto> result = SqlCounter.count(() -> memberJpaRepository.search(condition))
+                .assertStatementCount(0)
+                .getResult();
+
+        //then
+        assertThat(result).extracting("userName")
+                .containsExactly("member91", "member93", "member95", "member97", "member99");
+    }
+
+    @Test
+    void searchInWriteTransactionUsesDatabase() {
+        //given
+        memberSnapshot.reload();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserName("member1");
+
+        //when //then : 쓰기 트랜잭션 안에서는 커밋 전 자기 변경을 봐야 한다.
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findByUserName("member1").get(0).setAge(60);
+            assertThat(memberJpaRepository.search(condition)).extracting("age").containsExactly(60);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void bulkUpdateFallsBackUntilReload() {
+        //given
+        memberSnapshot.reload();
+        assertThat(memberSnapshot.isFresh()).isTrue();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserName("member1");
+
+        // 스냅샷 모니터를 잡고 있는 동안은 비동기 다시 읽기가 시작되지 않는다.
+        synchronized (memberSnapshot) {
+            //when : 벌크 update 는 바뀐 행을 알 수 없다.
+            transactionTemplate.executeWithoutResult(status -> jpaQueryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(1000))
+                    .execute());
+
+            //then : 다시 읽기 전까지는 DB 로 조회해서 바뀐 나이를 본다.
+            assertThat(memberSnapshot.isFresh()).isFalse();
+            assertThat(memberJpaRepository.search(condition)).extracting("age").containsExactly(1001);
+        }
+
+        //then : 비동기로 다시 읽은 뒤에는 스냅샷도 바뀐 나이
+        Await.until(memberSnapshot::isFresh, Duration.ofSeconds(10));
+        assertThat(memberSnapshot.search(condition)).extracting("age").containsExactly(1001);
+    }
+
+    private static List<MemberSearchCondition> conditions() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        conditions.add(new MemberSearchCondition());
+
+        MemberSearchCondition userName = new MemberSearchCondition();
+        userName.setUserName("member7");
+        conditions.add(userName);
+
+        MemberSearchCondition teamAge = new MemberSearchCondition();
+        teamAge.setTeamName("teamA");
+        teamAge.setAgeGoe(20);
+        teamAge.setAgeLoe(40);
+        conditions.add(teamAge);
+
+        MemberSearchCondition age = new MemberSearchCondition();
+        age.setAgeLoe(15);
+        conditions.add(age);
+
+        MemberSearchCondition contains = new MemberSearchCondition();
+        contains.setUserNameContains("ER5");
+        conditions.add(contains);
+
+        MemberSearchCondition startsWith = new MemberSearchCondition();
+        startsWith.setUserNameStartsWith("member9");
+        startsWith.setTeamName("teamB");
+        conditions.add(startsWith);
+
+        MemberSearchCondition noResult = new MemberSearchCondition();
+        noResult.setTeamName("teamC");
+        conditions.add(noResult);
+        return conditions;
+    }
+}
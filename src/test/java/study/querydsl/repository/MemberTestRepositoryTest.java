@@ -6,13 +6,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkDmlResult;
+import study.querydsl.support.SqlCounter;
 
 import javax.persistence.EntityManager;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @Transactional
 @SpringBootTest
 class MemberTestRepositoryTest {
@@ -47,12 +53,157 @@ class MemberTestRepositoryTest {
         condition.setTeamName("teamA");
         PageRequest pageRequest = PageRequest.of(0, 3);
 
+        entityManager.flush();
+        entityManager.clear();
+
         //when
-        Page<Member> result = repository.applyPagination2(condition, pageRequest);
+        Page<Member> result = SqlCounter.count(() -> repository.applyPagination2(condition, pageRequest))
+                .assertSelectCount(1) // 팀 A 회원 2명 < 페이지 크기 -> 카운트 쿼리 생략
+                .getResult();
 
         //then
         for (Member member : result) {
             System.out.println("member = " + member);
         }
+        assertThat(result.getContent())
+                .extracting("userName")
+                .containsExactly("member1", "member2");
+    }
+
+    @Test
+    @DisplayName("Slice 테스트")
+    void applySlicing() {
+        //given
+        for (int i = 1; i <= 4; i++) {
+            entityManager.persist(new Member("member" + i, i * 10));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        //when
+        Slice<Member> result = SqlCounter.count(() -> repository.applySlicing(condition, pageRequest))
+                .assertSelectCount(1)
+                .getResult();
+
+        //then
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getContent())
+                .extracting("userName")
+                .containsExactly("member4", "member3", "member2");
+    }
+
+    @Test
+    @DisplayName("이름 포함, 접두어 검색")
+    void userNameSearch() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        entityManager.persist(new Member("alpha", 10, teamA));
+        entityManager.persist(new Member("alphabet", 20, teamA));
+        entityManager.persist(new Member("beta", 30, teamA));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        MemberSearchCondition startsWith = new MemberSearchCondition();
+        startsWith.setUserNameStartsWith("alp");
+        MemberSearchCondition contains = new MemberSearchCondition();
+        contains.setUserNameContains("ETA");
+        contains.setTeamName("teamA");
+
+        //when
+        Page<Member> page = repository.applyPagination2(startsWith, PageRequest.of(0, 1));
+        Slice<Member> slice = repository.applySlicing(contains, PageRequest.of(0, 3));
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(slice.getContent())
+                .extracting("userName")
+                .containsExactly("beta");
+    }
+
+    @Test
+    @DisplayName("벌크 update 후 영속성 컨텍스트의 회원은 DB 값으로 다시 조회된다.")
+    void bulkUpdate() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 30, teamA);
+        entityManager.persist(member1);
+        entityManager.persist(member2);
+
+        //when
+        BulkDmlResult result = repository.bulkUpdateUserName(28, "비회원");
+
+        //then
+        assertThat(result.getAffectedRows()).isEqualTo(1);
+        assertThat(entityManager.contains(member1)).isFalse();
+        assertThat(entityManager.contains(teamA)).isTrue();
+        assertThat(entityManager.find(Member.class, member1.getId()).getUserName()).isEqualTo("비회원");
+    }
+
+    @Test
+    @DisplayName("컬럼 값 기준 벌크 update (age = age + n) 후 이전 값을 가진 회원이 남지 않는다.")
+    void bulkAddAge() {
+        //given
+        Member member1 = new Member("member1", 10);
+        Member member2 = new Member("member2", 20);
+        entityManager.persist(member1);
+        entityManager.persist(member2);
+
+        //when
+        BulkDmlResult result = repository.bulkAddAge(1);
+
+        //then
+        assertThat(result.getAffectedRows()).isEqualTo(2);
+        assertThat(entityManager.contains(member1)).isFalse();
+        assertThat(entityManager.contains(member2)).isFalse();
+        assertThat(entityManager.getEntityManagerFactory().getCache().contains(Member.class, member1.getId())).isFalse();
+        // 영속성 컨텍스트에 남아 있었다면 10, 20 이 그대로 보인다.
+        assertThat(repository.basicSelect())
+                .extracting("age")
+                .containsExactlyInAnyOrder(11, 21);
+    }
+
+    @Test
+    @DisplayName("벌크 update 후 team.getMembers() 로 읽어도 바뀐 값이 보인다.")
+    void bulkAddAgeThroughTeamMembers() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.flush();
+        entityManager.clear();
+
+        Team findTeam = entityManager.find(Team.class, teamA.getId());
+        assertThat(findTeam.getMembers()).extracting("age").containsExactlyInAnyOrder(10, 20); // 컬렉션 초기화
+
+        //when
+        repository.bulkAddAge(1);
+
+        //then : 이전 회원을 담은 컬렉션의 소유자도 준영속 상태라 다시 조회하면 컬렉션을 새로 읽는다.
+        assertThat(entityManager.contains(findTeam)).isFalse();
+        Team reloaded = entityManager.find(Team.class, teamA.getId());
+        assertThat(reloaded.getMembers()).extracting("age").containsExactlyInAnyOrder(11, 21);
+    }
+
+    @Test
+    void bulkDelete() {
+        //given
+        entityManager.persist(new Member("member1", 10));
+        entityManager.persist(new Member("member2", 30));
+
+        //when
+        BulkDmlResult result = repository.bulkDeleteByAgeGt(21);
+
+        //then
+        assertThat(result.getAffectedRows()).isEqualTo(1);
+        assertThat(repository.basicSelect())
+                .extracting("userName")
+                .containsExactly("member1");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package study.querydsl.repository;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamWithMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCounter;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Test
+    void findTeamsWithMembers() {
+        //given
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("team" + i);
+            entityManager.persist(team);
+            entityManager.persist(new Member("member" + i + "-1", 10, team));
+            entityManager.persist(new Member("member" + i + "-2", 20, team));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "name"));
+
+        //when
+        Page<Team> result = SqlCounter.count(() -> teamQueryRepository.findTeamsWithMembers(null, pageRequest))
+                .assertSelectCount(3) // ID 페이징 + fetch join + 카운트
+                .getResult();
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent())
+                .extracting("name")
+                .containsExactly("team2", "team1");
+        assertThat(result.getContent())
+                .allSatisfy(team -> {
+                    assertThat(Hibernate.isInitialized(team.getMembers())).isTrue();
+                    assertThat(team.getMembers()).hasSize(2);
+                });
+    }
+
+    @Test
+    void findTeamsWithMembersDto() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamA));
+
+        //when
+        List<TeamWithMembersDto> all = SqlCounter.count(() -> teamQueryRepository.findTeamsWithMembersDto(null, null))
+                .assertSelectCount(1)
+                .getResult();
+        // 팀별 상한은 서브쿼리 없이 읽으면서 자른다.
+        List<TeamWithMembersDto> limited = SqlCounter.count(() -> teamQueryRepository.findTeamsWithMembersDto(null, 2))
+                .assertSelectCount(1)
+                .getResult();
+
+        //then
+        assertThat(all).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(all.get(0).getMembers()).extracting("userName").containsExactly("member1", "member2", "member3");
+        assertThat(all.get(1).getMembers()).isEmpty();
+        assertThat(limited.get(0).getMembers()).extracting("userName").containsExactly("member1", "member2");
+        assertThat(limited.get(1).getMembers()).isEmpty();
+    }
+
+    @Test
+    void streamTeamsWithMembersDto() {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+
+        List<TeamWithMembersDto> result = new ArrayList<>();
+
+        //when
+        long count = teamQueryRepository.streamTeamsWithMembersDto("teamA", 1, result::add);
+
+        //then
+        assertThat(count).isEqualTo(1);
+        assertThat(result.get(0).getMembers()).extracting("userName").containsExactly("member1");
+    }
+}
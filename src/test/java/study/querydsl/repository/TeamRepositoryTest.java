@@ -0,0 +1,62 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlCounter;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋 후에 적재되므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ */
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    void cleanUp() {
+        teamRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void secondLevelCache() {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+
+        //when
+        Optional<Team> findTeam = SqlCounter.count(() -> teamRepository.findById(team.getId()))
+                .assertSelectCount(0)
+                .getResult();
+
+        //then
+        assertThat(entityManagerFactory.getCache().contains(Team.class, team.getId())).isTrue();
+        assertThat(findTeam).map(Team::getName).contains("teamA");
+    }
+
+    @Test
+    void queryCache() {
+        //given
+        teamRepository.save(new Team("teamA"));
+        teamRepository.findByName("teamA"); // 쿼리 캐시 적재
+
+        //when
+        Optional<Team> findTeam = SqlCounter.count(() -> teamRepository.findByName("teamA"))
+                .assertSelectCount(0)
+                .getResult();
+
+        //then
+        assertThat(findTeam).map(Team::getName).contains("teamA");
+    }
+}
@@ -0,0 +1,211 @@
+package study.querydsl.repository.event;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 커밋 후에 발행되므로 트랜잭션 롤백 없이 테스트하고 직접 정리한다.
+ */
+@SpringBootTest
+class EntityChangePublisherTest {
+
+    @Autowired
+    EntityChangeRecorder recorder;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void before() {
+        recorder.events.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void coalescePerEntityAfterCommit() {
+        //when : 한 트랜잭션에서 insert 후 update, insert 후 delete
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            entityManager.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            entityManager.persist(member1);
+            Member member2 = new Member("member2", 20);
+            entityManager.persist(member2);
+            entityManager.flush();
+
+            member1.setAge(11);
+            entityManager.remove(member2);
+            entityManager.flush();
+
+            assertThat(recorder.events).as("커밋 전에는 발행하지 않는다.").isEmpty();
+        });
+
+        //then
+        assertThat(recorder.events).hasSize(1);
+        EntityChangeEvent event = recorder.events.get(0);
+
+        List<EntityChange> memberChanges = event.getChanges(Member.class);
+        assertThat(memberChanges).hasSize(1);
+        EntityChange change = memberChanges.get(0);
+        assertThat(change.getType()).isEqualTo(EntityChange.Type.INSERT);
+        assertThat(change.get("userName")).isEqualTo("member1");
+        assertThat(change.get("age")).isEqualTo(11);
+        assertThat(change.get("team")).isEqualTo(event.getChanges(Team.class).get(0).getId());
+        assertThat(event.isBulkChanged(Member.class)).isFalse();
+    }
+
+    @Test
+    void discardOnRollback() {
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.persist(new Team("teamA"));
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(recorder.events).isEmpty();
+    }
+
+    @Test
+    void bulkUpdate() {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        recorder.events.clear();
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> jpaQueryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+        // 바뀐 행이 없으면 알리지 않는다.
+        transactionTemplate.executeWithoutResult(status -> jpaQueryFactory
+                .delete(member)
+                .where(member.age.gt(100))
+                .execute());
+
+        //then
+        assertThat(recorder.events).hasSize(1);
+        EntityChangeEvent event = recorder.events.get(0);
+        assertThat(event.isBulkChanged(Member.class)).isTrue();
+        assertThat(event.isChanged(Team.class)).isFalse();
+        assertThat(event.getChanges(Member.class)).isEmpty();
+    }
+
+    @Test
+    void requiresNewPublishesSeparately() {
+        //given
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        //when : 바깥 트랜잭션 변경 사이에 REQUIRES_NEW 로 커밋
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.persist(new Team("teamA"));
+            entityManager.flush();
+
+            requiresNew.executeWithoutResult(inner -> {
+                entityManager.persist(new Team("teamB"));
+                entityManager.flush();
+            });
+            assertThat(recorder.events).as("안쪽 트랜잭션은 자기 커밋 때 발행").hasSize(1);
+
+            // 안쪽이 끝나면 바깥 트랜잭션의 변경 모음이 다시 이어진다.
+            entityManager.persist(new Team("teamC"));
+            entityManager.flush();
+        });
+
+        //then
+        assertThat(recorder.events).hasSize(2);
+        assertThat(teamNames(recorder.events.get(0))).containsExactly("teamB");
+        assertThat(teamNames(recorder.events.get(1))).containsExactlyInAnyOrder("teamA", "teamC");
+    }
+
+    @Test
+    void innerCommitSurvivesOuterRollback() {
+        //given
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.persist(new Team("teamA"));
+            entityManager.flush();
+
+            requiresNew.executeWithoutResult(inner -> {
+                entityManager.persist(new Team("teamB"));
+                entityManager.flush();
+            });
+            status.setRollbackOnly();
+        });
+
+        //then : 커밋된 안쪽 변경만 발행
+        assertThat(recorder.events).hasSize(1);
+        assertThat(teamNames(recorder.events.get(0))).containsExactly("teamB");
+        assertThat(teamRepository.findAll()).extracting("name").containsExactly("teamB");
+    }
+
+    private static List<Object> teamNames(EntityChangeEvent event) {
+        return event.getChanges(Team.class).stream()
+                .map(change -> change.get("name"))
+                .collect(Collectors.toList());
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        EntityChangeRecorder entityChangeRecorder() {
+            return new EntityChangeRecorder();
+        }
+    }
+
+    static class EntityChangeRecorder {
+        final List<EntityChangeEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onChange(EntityChangeEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.repository.support.MemberAgeColumns.Aggregate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 스프링 없이 컬럼 저장소만 검증한다.
+ */
+class MemberAgeColumnsTest {
+
+    @Test
+    void aggregate() {
+        //given : QuerydslBasicTest 와 같은 데이터
+        MemberAgeColumns columns = new MemberAgeColumns();
+        columns.append(1L, 10, 100L);
+        columns.append(2L, 20, 100L);
+        columns.append(3L, 30, 200L);
+        columns.append(4L, 40, 200L);
+
+        //when
+        Aggregate aggregate = columns.aggregate();
+        Map<Long, Aggregate> byTeam = columns.aggregateByTeam();
+
+        //then
+        assertThat(aggregate.getCount()).isEqualTo(4);
+        assertThat(aggregate.getSum()).isEqualTo(100);
+        assertThat(aggregate.getAvg()).isEqualTo(25);
+        assertThat(aggregate.getMax()).isEqualTo(40);
+        assertThat(aggregate.getMin()).isEqualTo(10);
+
+        assertThat(byTeam.get(100L).getAvg()).isEqualTo(15);
+        assertThat(byTeam.get(200L).getAvg()).isEqualTo(35);
+    }
+
+    @Test
+    void appendUpdateRemove() {
+        //given
+        MemberAgeColumns columns = new MemberAgeColumns();
+        columns.append(10L, 10, 100L);
+        columns.append(30L, 30, null);
+        // id 가 뒤바뀌어 들어와도 정렬 위치에 들어간다.
+        columns.append(20L, 20, 100L);
+
+        //when
+        columns.append(30L, 35, 200L);
+        boolean removed = columns.remove(10L);
+        boolean removedAgain = columns.remove(10L);
+
+        //then
+        assertThat(removed).isTrue();
+        assertThat(removedAgain).isFalse();
+        assertThat(columns.size()).isEqualTo(2);
+
+        Aggregate aggregate = columns.aggregate();
+        assertThat(aggregate.getSum()).isEqualTo(55);
+        assertThat(aggregate.getMin()).isEqualTo(20);
+        assertThat(aggregate.getMax()).isEqualTo(35);
+
+        Map<Long, Aggregate> byTeam = columns.aggregateByTeam();
+        assertThat(byTeam.get(100L).getCount()).isEqualTo(1);
+        assertThat(byTeam.get(200L).getSum()).isEqualTo(35);
+
+        // 삭제한 회원을 다시 넣으면 되살린다.
+        columns.append(10L, 12, null);
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.aggregate().getMin()).isEqualTo(12);
+    }
+
+    @Test
+    void compactAfterManyRemoves() {
+        //given
+        MemberAgeColumns columns = new MemberAgeColumns(0);
+        for (long id = 1; id <= 10_000; id++) {
+            columns.append(id, (int) (id % 100), id % 2 == 0 ? 1L : 2L);
+        }
+
+        //when : 절반 삭제 (중간에 compact 가 일어난다.)
+        for (long id = 2; id <= 10_000; id += 2) {
+            columns.remove(id);
+        }
+
+        //then
+        assertThat(columns.size()).isEqualTo(5_000);
+        assertThat(columns.aggregateByTeam()).containsOnlyKeys(2L);
+        assertThat(columns.aggregate().getMin()).isEqualTo(1);
+        assertThat(columns.aggregate().getMax()).isEqualTo(99);
+        assertThat(columns.remove(9_999L)).isTrue();
+        assertThat(columns.size()).isEqualTo(4_999);
+    }
+
+    @Test
+    void empty() {
+        Aggregate aggregate = new MemberAgeColumns().aggregate();
+
+        assertThat(aggregate.getCount()).isZero();
+        assertThat(aggregate.getAvg()).isNull();
+        assertThat(aggregate.getMin()).isNull();
+    }
+}
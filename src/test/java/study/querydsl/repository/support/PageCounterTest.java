@@ -0,0 +1,113 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.support.SqlCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 통계 추정치를 실제 건수와 다르게 고정해서 ESTIMATED 페이지를 검증한다.
+ */
+@Transactional
+@SpringBootTest
+class PageCounterTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    long estimate;
+
+    PageCounter pageCounter;
+
+    @BeforeEach
+    void before() {
+        for (int i = 1; i <= 4; i++) {
+            entityManager.persist(new Member("member" + i, i * 10));
+        }
+        entityManager.flush();
+
+        pageCounter = new PageCounter(jdbcTemplate, entityManagerFactory, Duration.ofSeconds(30), 100, 1) {
+            @Override
+            long rowCountEstimate(String tableName) {
+                return estimate;
+            }
+        };
+    }
+
+    @Test
+    void estimateGreaterThanActual() {
+        //given : 삭제 후 통계가 갱신되지 않은 경우
+        estimate = 100;
+
+        //when
+        Page<Member> first = page(PageRequest.of(0, 2));
+        Page<Member> last = SqlCounter.count(() -> page(PageRequest.of(1, 2)))
+                .assertSelectCount(1) // 데이터 조회만
+                .getResult();
+
+        //then
+        assertThat(first).isInstanceOf(ApproximatePage.class);
+        assertThat(first.getTotalElements()).isEqualTo(100);
+        assertThat(first.hasNext()).isTrue();
+
+        // 추정치로는 50 페이지지만 실제로는 여기가 마지막 페이지
+        assertThat(last).isNotInstanceOf(ApproximatePage.class);
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.isLast()).isTrue();
+        assertThat(last.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void estimateLessThanActual() {
+        //given
+        estimate = 1;
+
+        //when
+        Page<Member> first = page(PageRequest.of(0, 2));
+
+        //then : 다음 행이 있으므로 전체 건수는 적어도 현재 페이지 + 1
+        assertThat(first).isInstanceOf(ApproximatePage.class);
+        assertThat(((ApproximatePage<Member>) first).isTotalEstimated()).isTrue();
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getTotalPages()).isEqualTo(2);
+    }
+
+    private Page<Member> page(PageRequest pageRequest) {
+        List<Member> content = jpaQueryFactory
+                .selectFrom(member)
+                .orderBy(member.id.asc())
+                .offset(pageRequest.getOffset())
+                .limit(PageCounter.fetchSize(pageRequest, CountStrategy.ESTIMATED))
+                .fetch();
+        JPAQuery<Long> countQuery = jpaQueryFactory
+                .select(member.count())
+                .from(member);
+        return pageCounter.getPage(content, pageRequest, countQuery, CountStrategy.ESTIMATED);
+    }
+}
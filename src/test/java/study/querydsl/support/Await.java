@@ -0,0 +1,35 @@
+package study.querydsl.support;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * 비동기로 반영되는 상태(벌크 변경 후 다시 읽기 등)를 기다린다.
+ * <pre>
+ * Await.until(memberSnapshot::isFresh, Duration.ofSeconds(5));
+ * </pre>
+ */
+public class Await {
+
+    private static final long POLL_MILLIS = 20;
+
+    private Await() {
+    }
+
+    public static void until(BooleanSupplier condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("%s 안에 조건을 만족하지 않았습니다.", timeout);
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("기다리는 중 인터럽트", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package study.querydsl.support;
+
+import study.querydsl.repository.support.QueryCount;
+import study.querydsl.repository.support.QueryCountInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 블록 안에서 실행된 SQL 수를 종류별로 세고 검증한다. (N+1 회귀 방지)
+ * <pre>
+ * SqlCounter.count(() -> memberRepository.search(condition))
+ *         .assertSelectCount(1);
+ * </pre>
+ * 영속성 컨텍스트에 쌓인 insert 등은 블록 안의 쿼리 실행 시점에 flush 되어 같이 세어지므로
+ * 필요하면 블록 전에 flush 할 것
+ */
+public class SqlCounter {
+
+    private final QueryCount count;
+    private final List<String> sqls;
+
+    private SqlCounter(QueryCount count, List<String> sqls) {
+        this.count = count;
+        this.sqls = sqls;
+    }
+
+    public static SqlCounter count(Runnable block) {
+        return count(() -> {
+            block.run();
+            return null;
+        }).counter;
+    }
+
+    public static <T> Counted<T> count(Supplier<T> block) {
+        List<String> sqls = new ArrayList<>();
+        List<String> outer = QueryCountInspector.capture(sqls);
+        QueryCount before = QueryCountInspector.snapshot();
+        T result;
+        try {
+            result = block.get();
+        } finally {
+            // 바깥 SqlCounter 도 안쪽 SQL 을 보도록 넘겨준다.
+            QueryCountInspector.capture(outer);
+            if (outer != null) {
+                outer.addAll(sqls);
+            }
+        }
+        return new Counted<>(result, new SqlCounter(QueryCountInspector.snapshot().minus(before), sqls));
+    }
+
+    public QueryCount getCount() {
+        return count;
+    }
+
+    /**
+     * 블록 안에서 실행된 SQL (주석 제외)
+     */
+    public List<String> getSqls() {
+        return sqls;
+    }
+
+    public SqlCounter assertSelectCount(long expected) {
+        assertThat(count.getSelect()).as("select 수, %s", count).isEqualTo(expected);
+        return this;
+    }
+
+    public SqlCounter assertInsertCount(long expected) {
+        assertThat(count.getInsert()).as("insert 수, %s", count).isEqualTo(expected);
+        return this;
+    }
+
+    public SqlCounter assertUpdateCount(long expected) {
+        assertThat(count.getUpdate()).as("update 수, %s", count).isEqualTo(expected);
+        return this;
+    }
+
+    public SqlCounter assertDeleteCount(long expected) {
+        assertThat(count.getDelete()).as("delete 수, %s", count).isEqualTo(expected);
+        return this;
+    }
+
+    public SqlCounter assertStatementCount(long expected) {
+        assertThat(count.getStatementCount()).as("전체 SQL 수, %s", count).isEqualTo(expected);
+        return this;
+    }
+
+    /**
+     * 블록 안의 SQL 전체에 나온 join 수 (불필요한 조인 회귀 방지)
+     */
+    public SqlCounter assertJoinCount(long expected) {
+        long joins = sqls.stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT).split("\\bjoin\\b", -1).length - 1)
+                .mapToLong(Integer::longValue)
+                .sum();
+        assertThat(joins).as("join 수, %s", sqls).isEqualTo(expected);
+        return this;
+    }
+
+    /**
+     * 블록의 반환값과 SQL 수
+     */
+    public static class Counted<T> {
+        private final T result;
+        private final SqlCounter counter;
+
+        private Counted(T result, SqlCounter counter) {
+            this.result = result;
+            this.counter = counter;
+        }
+
+        public T getResult() {
+            return result;
+        }
+
+        public Counted<T> assertSelectCount(long expected) {
+            counter.assertSelectCount(expected);
+            return this;
+        }
+
+        public Counted<T> assertStatementCount(long expected) {
+            counter.assertStatementCount(expected);
+            return this;
+        }
+
+        public Counted<T> assertJoinCount(long expected) {
+            counter.assertJoinCount(expected);
+            return this;
+        }
+
+        public SqlCounter counter() {
+            return counter;
+        }
+    }
+}